@@ -9,11 +9,21 @@
  */
 package com.github.nginate.commons.lang;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.nginate.commons.lang.template.LazyString;
+import com.github.nginate.commons.lang.template.Template;
+import com.github.nginate.commons.lang.template.TemplateRenderer;
 import lombok.NonNull;
 import lombok.experimental.UtilityClass;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.util.function.BiFunction;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Basically, this utility should cover everything related to string manipulation
@@ -24,13 +34,18 @@ import java.util.function.BiFunction;
 @UtilityClass
 public class NStrings {
 
-    private static final BiFunction<char[], Integer, Integer> SIMPLE_CLOSE_FINDER = (chars, index) -> {
-        int testingIndex = index + 1;
-        return chars[testingIndex] == '}' ? testingIndex : -1;
-    };
+    /**
+     * Max number of compiled templates to keep in each cache. Once the limit is hit, rarely used templates are evicted
+     * so frequently used ones stay compiled.
+     */
+    private static final int TEMPLATE_CACHE_SIZE = 1024;
+    /**
+     * Default number of chars to collect before writing rendered rows out
+     */
+    private static final int DEFAULT_BATCH_SIZE = 8 * 1024;
 
-    private static final BiFunction<char[], Integer, Integer> NAMED_CLOSE_FINDER = (chars, index) ->
-            ArrayUtils.indexOf(chars, '}', index);
+    static final Cache<String, Template> SIMPLE_TEMPLATES = templateCache();
+    static final Cache<String, Template> NAMED_TEMPLATES = templateCache();
 
     /**
      * Create string from provided template and args. Placeholders should consist of '{' a a start symbol and '}' as
@@ -43,7 +58,72 @@ public class NStrings {
      * @return plain string with injected args
      */
     public static String format(@NonNull String message, Object... args) {
-        return formatInternal(message, SIMPLE_CLOSE_FINDER, args);
+        return cached(SIMPLE_TEMPLATES, message, Template::compile).render(args);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)} for one arg, without creating args array
+     *
+     * @param message string template with placeholders
+     * @param arg0    first arg
+     * @return plain string with injected args
+     */
+    public static String format(@NonNull String message, Object arg0) {
+        return cached(SIMPLE_TEMPLATES, message, Template::compile).render(arg0);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)} for two args, without creating args array
+     *
+     * @param message string template with placeholders
+     * @param arg0    first arg
+     * @param arg1    second arg
+     * @return plain string with injected args
+     */
+    public static String format(@NonNull String message, Object arg0, Object arg1) {
+        return cached(SIMPLE_TEMPLATES, message, Template::compile).render(arg0, arg1);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)} for three args, without creating args array
+     *
+     * @param message string template with placeholders
+     * @param arg0    first arg
+     * @param arg1    second arg
+     * @param arg2    third arg
+     * @return plain string with injected args
+     */
+    public static String format(@NonNull String message, Object arg0, Object arg1, Object arg2) {
+        return cached(SIMPLE_TEMPLATES, message, Template::compile).render(arg0, arg1, arg2);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)} for four args, without creating args array
+     *
+     * @param message string template with placeholders
+     * @param arg0    first arg
+     * @param arg1    second arg
+     * @param arg2    third arg
+     * @param arg3    fourth arg
+     * @return plain string with injected args
+     */
+    public static String format(@NonNull String message, Object arg0, Object arg1, Object arg2, Object arg3) {
+        return cached(SIMPLE_TEMPLATES, message, Template::compile).render(arg0, arg1, arg2, arg3);
+    }
+
+    /**
+     * Start fluent rendering of template with simple ('{}') placeholders. Primitive args are written to the result
+     * without boxing:
+     * <pre>{@code
+     *     String line = NStrings.template("{} {}").arg(count).arg(elapsedNanos).render();
+     * }</pre>
+     *
+     * @param template string template with placeholders
+     * @return single use renderer, reused by current thread once rendered
+     * @see TemplateRenderer
+     */
+    public static TemplateRenderer template(@NonNull String template) {
+        return cached(SIMPLE_TEMPLATES, template, Template::compile).renderer();
     }
 
     /**
@@ -56,42 +136,274 @@ public class NStrings {
      * @param template string template with placeholders
      * @param args args to inject in template
      * @return plain string with injected args
+     * @see NStrings#formatNamed(String, Map)
      */
     public static String formatNamed(@NonNull String template, Object... args) {
-        return formatInternal(template, NAMED_CLOSE_FINDER, args);
+        return cached(NAMED_TEMPLATES, template, Template::compileNamed).render(args);
     }
 
     /**
-     * Internal template generator. Consumes one of function for simple ('{}') or named placeholder ('{arg1}') template
+     * Same as {@link NStrings#formatNamed(String, Object...)}, but values are taken from map by placeholder names
+     * instead of position. Dotted names ({@code '{user.name}'}) are resolved as paths through nested maps and beans.
+     *
      * @param template string template with placeholders
-     * @param closeFinder function to determine end symbol for a placeholder
-     * @param args args to inject in template
-     * @return plain string with injected args
+     * @param values   values to inject in template
+     * @return plain string with injected values
+     * @throws IllegalArgumentException if some bean on placeholder path has no such property
+     * @see Template#renderValues(Map)
+     */
+    public static String formatNamed(@NonNull String template, @NonNull Map<String, ?> values) {
+        return cached(NAMED_TEMPLATES, template, Template::compileNamed).renderValues(values);
+    }
+
+    /**
+     * Same as {@link NStrings#formatNamed(String, Object...)}, but values are bean properties, read by placeholder
+     * names. Dotted names ({@code '{user.address.city}'}) are resolved as property paths.
+     *
+     * @param template string template with placeholders
+     * @param bean     source of values
+     * @return plain string with injected values
+     * @throws IllegalArgumentException if some bean on placeholder path has no such property
+     * @see Template#renderBean(Object)
+     */
+    public static String formatBean(@NonNull String template, @NonNull Object bean) {
+        return cached(NAMED_TEMPLATES, template, Template::compileNamed).renderBean(bean);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)}, but template is neither parsed nor rendered until the result
+     * is read. Use it for messages that are likely to be dropped, e.g. passed to disabled log levels.
+     *
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @return char sequence, rendering template on first access
+     * @see LazyString
      */
-    private static String formatInternal(String template,
-                                         BiFunction<char[], Integer, Integer> closeFinder,
-                                         Object... args) {
-        StringBuilder sb = new StringBuilder(template.length() * 2);
-        int index = 0;
-        int argIndex = 0;
-        char[] chars = template.toCharArray();
-        while (index < template.length()) {
-            char curChar = chars[index];
-            if (index < template.length() - 1 && curChar == '{') {
-                int closeIndex = closeFinder.apply(chars, index);
-                if (closeIndex > 0) {
-                    sb.append(args[argIndex]);
-                    argIndex++;
-                    index = closeIndex + 1;
-                } else {
-                    sb.append(curChar);
-                    index++;
-                }
-            } else {
-                sb.append(curChar);
-                index++;
-            }
+    public static LazyString lazy(@NonNull String template, Object... args) {
+        return LazyString.of(template, args);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)}, but writes result straight to provided target instead of
+     * creating a new string. Template may be any char sequence: strings are compiled and cached as usual, others (e.g.
+     * a {@link java.nio.CharBuffer} over a memory-mapped file) are scanned in place without copying.
+     *
+     * @param target   appendable to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if target fails to append
+     * @see Template#renderTo(Appendable, Object...)
+     * @see Template#renderOnce(Appendable, CharSequence, Object...)
+     */
+    public static <A extends Appendable> A formatTo(@NonNull A target, @NonNull CharSequence template,
+                                                    Object... args) {
+        if (template instanceof String) {
+            return cached(SIMPLE_TEMPLATES, (String) template, Template::compile).renderTo(target, args);
         }
-        return sb.toString();
+        return Template.renderOnce(target, template, args);
+    }
+
+    /**
+     * Same as {@link NStrings#formatNamed(String, Object...)}, but writes result straight to provided target instead
+     * of creating a new string. Template may be any char sequence: strings are compiled and cached as usual, others
+     * are scanned in place without copying.
+     *
+     * @param target   appendable to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if target fails to append
+     * @see Template#renderTo(Appendable, Object...)
+     * @see Template#renderNamedOnce(Appendable, CharSequence, Object...)
+     */
+    public static <A extends Appendable> A formatNamedTo(@NonNull A target, @NonNull CharSequence template,
+                                                         Object... args) {
+        if (template instanceof String) {
+            return cached(NAMED_TEMPLATES, (String) template, Template::compileNamed).renderTo(target, args);
+        }
+        return Template.renderNamedOnce(target, template, args);
+    }
+
+    /**
+     * Same as {@link NStrings#formatTo(Appendable, CharSequence, Object...)}, but renders template into a builder,
+     * reused by current thread, and hands it to the target in a single call.
+     *
+     * @param target   appendable to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if target fails to append
+     * @see Template#renderBufferedTo(Appendable, Object...)
+     */
+    public static <A extends Appendable> A formatBufferedTo(@NonNull A target, @NonNull String template,
+                                                            Object... args) {
+        return cached(SIMPLE_TEMPLATES, template, Template::compile).renderBufferedTo(target, args);
+    }
+
+    /**
+     * Same as {@link NStrings#formatNamedTo(Appendable, CharSequence, Object...)}, but renders template into a
+     * builder, reused by current thread, and hands it to the target in a single call.
+     *
+     * @param target   appendable to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if target fails to append
+     * @see Template#renderBufferedTo(Appendable, Object...)
+     */
+    public static <A extends Appendable> A formatNamedBufferedTo(@NonNull A target, @NonNull String template,
+                                                                 Object... args) {
+        return cached(NAMED_TEMPLATES, template, Template::compileNamed).renderBufferedTo(target, args);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)}, but writes result as UTF-8 bytes straight into provided
+     * buffer. If result does not fit into remaining space, buffer position is left untouched and false is returned, so
+     * caller may flush the buffer and try again.
+     *
+     * @param target   buffer to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @return true if result was written, false if there is not enough space in buffer
+     * @see Template#encodeTo(ByteBuffer, Object...)
+     */
+    public static boolean formatToBytes(@NonNull ByteBuffer target, @NonNull String template, Object... args) {
+        return cached(SIMPLE_TEMPLATES, template, Template::compile).encodeTo(target, args);
+    }
+
+    /**
+     * Same as {@link NStrings#format(String, Object...)}, but writes result as UTF-8 bytes straight into provided
+     * stream.
+     *
+     * @param target   stream to write result to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <S>      stream type
+     * @return same stream
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if stream fails to write
+     * @see Template#encodeTo(OutputStream, Object...)
+     */
+    public static <S extends OutputStream> S formatToBytes(@NonNull S target, @NonNull String template,
+                                                           Object... args) {
+        return cached(SIMPLE_TEMPLATES, template, Template::compile).encodeTo(target, args);
+    }
+
+    /**
+     * Render template with simple ('{}') placeholders for each row of args and write results one after another to
+     * provided writer. Template is parsed once, rows are collected in a single buffer and written out in batches.
+     * Useful for exports, e.g. {@code renderAll("{},{},{}\n", rows, writer)} produces CSV.
+     *
+     * @param template string template with placeholders
+     * @param rows     args for each rendering
+     * @param target   writer to write results to
+     * @return number of rendered rows
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if writer fails to write
+     * @see NStrings#renderAll(String, Iterator, Writer, int)
+     */
+    public static long renderAll(@NonNull String template, @NonNull Iterator<Object[]> rows, @NonNull Writer target) {
+        return renderAll(template, rows, target, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Render template with simple ('{}') placeholders for each row of args and write results one after another to
+     * provided writer. Template is parsed once, rows are collected in a single buffer, which is written out each time
+     * it reaches {@code batchSize} chars.
+     *
+     * @param template  string template with placeholders
+     * @param rows      args for each rendering
+     * @param target    writer to write results to
+     * @param batchSize number of chars to collect before writing them out
+     * @return number of rendered rows
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if writer fails to write
+     * @see Template#renderAll(Iterator, Writer, int)
+     */
+    public static long renderAll(@NonNull String template, @NonNull Iterator<Object[]> rows, @NonNull Writer target,
+                                 int batchSize) {
+        return compile(template).renderAll(rows, target, batchSize);
+    }
+
+    /**
+     * Same as {@link NStrings#renderAll(String, Iterator, Writer)}, but rows are taken from a stream. Stream is
+     * consumed in encounter order.
+     *
+     * @param template string template with placeholders
+     * @param rows     args for each rendering
+     * @param target   writer to write results to
+     * @return number of rendered rows
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if writer fails to write
+     */
+    public static long renderAll(@NonNull String template, @NonNull Stream<Object[]> rows, @NonNull Writer target) {
+        return renderAll(template, rows.iterator(), target, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link NStrings#renderAll(String, Iterator, Writer, int)}, but rows are taken from a stream. Stream is
+     * consumed in encounter order.
+     *
+     * @param template  string template with placeholders
+     * @param rows      args for each rendering
+     * @param target    writer to write results to
+     * @param batchSize number of chars to collect before writing them out
+     * @return number of rendered rows
+     * @throws com.github.nginate.commons.lang.function.unchecked.RuntimeIOException if writer fails to write
+     */
+    public static long renderAll(@NonNull String template, @NonNull Stream<Object[]> rows, @NonNull Writer target,
+                                 int batchSize) {
+        return renderAll(template, rows.iterator(), target, batchSize);
+    }
+
+    /**
+     * Parse template with simple ('{}') placeholders once to render it many times later. Prefer this one over
+     * {@link NStrings#format(String, Object...)} for templates stored in constants. Template may be any char sequence,
+     * it is scanned in place.
+     *
+     * @param template string template with placeholders
+     * @return immutable thread-safe compiled template
+     * @see Template
+     */
+    public static Template compile(@NonNull CharSequence template) {
+        return Template.compile(template);
+    }
+
+    /**
+     * Parse template with named ('{arg1}') placeholders once to render it many times later.
+     *
+     * @param template string template with placeholders
+     * @return immutable thread-safe compiled template
+     * @see NStrings#formatNamed(String, Object...)
+     */
+    public static Template compileNamed(@NonNull CharSequence template) {
+        return Template.compileNamed(template);
+    }
+
+    /**
+     * Get compiled template from cache or compile and save it. Template is compiled outside of cache locks, so
+     * concurrent misses may compile it twice, which is cheaper than blocking on each other.
+     *
+     * @param cache    cache of compiled templates
+     * @param template string template with placeholders
+     * @param compiler function to parse template
+     * @return compiled template
+     */
+    private static Template cached(Cache<String, Template> cache, String template,
+                                   Function<String, Template> compiler) {
+        Template compiled = cache.getIfPresent(template);
+        if (compiled == null) {
+            compiled = compiler.apply(template);
+            cache.put(template, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * @return cache of compiled templates bounded with {@link NStrings#TEMPLATE_CACHE_SIZE} entries
+     */
+    private static Cache<String, Template> templateCache() {
+        return Caffeine.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).build();
     }
 }
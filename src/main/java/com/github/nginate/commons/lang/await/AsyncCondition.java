@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.await;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Condition check, rescheduling itself on provided scheduler until probed value is accepted or time is out. No thread
+ * is held between checks.
+ *
+ * @param <T> probed value type
+ * @since 1.0.1
+ */
+class AsyncCondition<T> implements Runnable {
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final ScheduledExecutorService scheduler;
+    private final Callable<T> probe;
+    private final Predicate<? super T> accept;
+    private final String failureMessage;
+    private final PollStrategy strategy;
+    private final long deadline;
+    /**
+     * Number of failed checks. Checks never overlap, each one schedules the next
+     */
+    private int attempt;
+
+    AsyncCondition(ScheduledExecutorService scheduler, Callable<T> probe, Predicate<? super T> accept,
+                   String failureMessage, long timeoutNanos, PollStrategy strategy) {
+        this.scheduler = scheduler;
+        this.probe = probe;
+        this.accept = accept;
+        this.failureMessage = failureMessage;
+        this.strategy = strategy;
+        this.deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * Schedule the first check
+     *
+     * @return future to be completed with accepted value or failed when time is out
+     */
+    CompletableFuture<T> start() {
+        schedule(0);
+        return result;
+    }
+
+    @Override
+    public void run() {
+        if (result.isDone()) {
+            // cancelled by caller
+            return;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            result.completeExceptionally(new ConditionTimeoutException(failureMessage));
+            return;
+        }
+        try {
+            T value = probe.call();
+            if (accept.test(value)) {
+                result.complete(value);
+            } else {
+                attempt++;
+                schedule(Math.min(strategy.delayNanos(attempt), deadline - System.nanoTime()));
+            }
+        } catch (Throwable e) {
+            // errors included: scheduler would swallow them, and the check would be never rescheduled nor completed
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        try {
+            scheduler.schedule(this, Math.max(delayNanos, 0), NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
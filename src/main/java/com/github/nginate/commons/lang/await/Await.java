@@ -11,13 +11,39 @@ package com.github.nginate.commons.lang.await;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.NonNull;
 import lombok.experimental.UtilityClass;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Throwables.propagate;
-import static java.lang.Thread.sleep;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Better waiting for required periodically polling for result and not just sleeping for some hardcoded period
@@ -31,6 +57,7 @@ public final class Await {
      * Default interval for conditions checks
      */
     private static final int DEFAULT_STEP_MILLIS = 200;
+    private static final String DEFAULT_FAILURE_MESSAGE = "Waiting for condition timed out";
 
     /**
      * Wait till the condition will become true during at most {@code timeout} millis. Will be checking the condition
@@ -57,7 +84,7 @@ public final class Await {
      * @see Await#waitUntil(int, int, String, Callable)
      */
     public static void waitUntil(int timeout, int waitStepMillis, Callable<Boolean> condition) {
-        waitUntil(timeout, waitStepMillis, "Waiting for condition timed out", condition);
+        waitUntil(timeout, waitStepMillis, DEFAULT_FAILURE_MESSAGE, condition);
     }
 
     /**
@@ -87,20 +114,735 @@ public final class Await {
      * @throws IllegalArgumentException  if step millis are more or equal to overall wait millis
      */
     public static void waitUntil(int timeout, int waitStepMillis, String failureMessage, Callable<Boolean> condition) {
+        waitUntilSignalled(timeout, waitStepMillis, failureMessage, null, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout} millis. Condition is checked each time
+     * the signal is sent and at least each {@link Await#DEFAULT_STEP_MILLIS} millis in case some change was not
+     * signalled.
+     *
+     * @param timeout   max wait millis
+     * @param signal    signal, sent by the code that may satisfy the condition
+     * @param condition required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @see Await#waitUntilSignalled(int, int, String, Signal, Callable)
+     */
+    public static void waitUntilSignalled(int timeout, Signal signal, Callable<Boolean> condition) {
+        waitUntilSignalled(timeout, DEFAULT_STEP_MILLIS, signal, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout} millis. Condition is checked each time
+     * the signal is sent and at least each {@code waitStepMillis} millis in case some change was not signalled.
+     *
+     * @param timeout        max wait millis
+     * @param waitStepMillis max millis between condition checks if no signal is sent
+     * @param signal         signal, sent by the code that may satisfy the condition
+     * @param condition      required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if step millis are more or equal to overall wait millis
+     * @see Await#waitUntilSignalled(int, int, String, Signal, Callable)
+     */
+    public static void waitUntilSignalled(int timeout, int waitStepMillis, Signal signal,
+                                          Callable<Boolean> condition) {
+        waitUntilSignalled(timeout, waitStepMillis, DEFAULT_FAILURE_MESSAGE, signal, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout} millis. Condition is checked each time
+     * the signal is sent and at least each {@code waitStepMillis} millis in case some change was not signalled. If no
+     * signal is provided, condition is checked each {@code waitStepMillis} millis.
+     *
+     * @param timeout        max wait millis
+     * @param waitStepMillis max millis between condition checks if no signal is sent
+     * @param failureMessage message to see if waiting fails
+     * @param signal         signal, sent by the code that may satisfy the condition, may be null
+     * @param condition      required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if step millis are more or equal to overall wait millis
+     */
+    public static void waitUntilSignalled(int timeout, int waitStepMillis, String failureMessage,
+                                          @Nullable Signal signal, Callable<Boolean> condition) {
         Preconditions.checkArgument(waitStepMillis > 0, "step sleep time should be positive");
         Preconditions.checkArgument(waitStepMillis <= timeout, "step sleep time must be less or equal to timeout");
 
+        await(MILLISECONDS.toNanos(timeout), PollStrategies.fixed(Duration.ofMillis(waitStepMillis)), failureMessage,
+                signal, condition, Boolean::booleanValue);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout}. Pauses between condition checks are
+     * defined by provided strategy.
+     *
+     * @param timeout   max wait time
+     * @param strategy  poll strategy
+     * @param condition required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see PollStrategies
+     */
+    public static void waitUntil(Duration timeout, PollStrategy strategy, Callable<Boolean> condition) {
+        waitUntilSignalled(timeout, strategy, DEFAULT_FAILURE_MESSAGE, null, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout}. Pauses between condition checks are
+     * defined by provided strategy.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param condition      required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see PollStrategies
+     */
+    public static void waitUntil(Duration timeout, PollStrategy strategy, String failureMessage,
+                                 Callable<Boolean> condition) {
+        waitUntilSignalled(timeout, strategy, failureMessage, null, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout}. Condition is checked each time the
+     * signal is sent, pauses between checks without signals are defined by provided strategy.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param signal         signal, sent by the code that may satisfy the condition, may be null
+     * @param condition      required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see PollStrategies
+     */
+    public static void waitUntilSignalled(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                          String failureMessage, @Nullable Signal signal,
+                                          @NonNull Callable<Boolean> condition) {
+        await(positiveNanos(timeout), strategy, failureMessage, signal, condition, Boolean::booleanValue);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout}, even if the condition itself hangs.
+     * Each check runs on a shared pool of daemon threads and is given the rest of the wait time only; a check that is
+     * still running when time is out gets interrupted and abandoned.
+     *
+     * @param timeout   max wait time
+     * @param strategy  poll strategy
+     * @param condition required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period. Exception holds attempts
+     *                                   count and the slowest attempt time
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#waitUntilBounded(Duration, PollStrategy, String, ExecutorService, Callable)
+     */
+    public static void waitUntilBounded(Duration timeout, PollStrategy strategy, Callable<Boolean> condition) {
+        waitUntilBounded(timeout, strategy, DEFAULT_FAILURE_MESSAGE, EvaluatorHolder.EVALUATOR, condition);
+    }
+
+    /**
+     * Wait till the condition will become true during at most {@code timeout}, even if the condition itself hangs.
+     * Each check runs on provided executor and is given the rest of the wait time only; a check that is still running
+     * when time is out gets interrupted and abandoned. Conditions that block in non-interruptible calls keep the
+     * executor thread busy till they return, so executor should be able to spare it.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param executor       executor to check condition on
+     * @param condition      required condition
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period. Exception holds attempts
+     *                                   count and the slowest attempt time
+     * @throws IllegalArgumentException  if timeout is not positive
+     */
+    public static void waitUntilBounded(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                        String failureMessage, @NonNull ExecutorService executor,
+                                        @NonNull Callable<Boolean> condition) {
+        awaitBounded(positiveNanos(timeout), strategy, failureMessage, executor, condition);
+    }
+
+    /**
+     * Wait till the predicate will become true for the path during at most {@code timeout}, e.g. till the file is
+     * created or deleted. Predicate is checked again as soon as the path's directory reports creation, modification or
+     * deletion of any of its entries, and also each {@link Await#DEFAULT_STEP_MILLIS} millis in case the file system
+     * does not deliver such events.
+     *
+     * <pre>{@code
+     *     Await.untilPath(lockFile, Files::notExists, Duration.ofMinutes(1));
+     * }</pre>
+     *
+     * @param path      path to check
+     * @param predicate required condition of the path
+     * @param timeout   max wait time
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#untilPath(Path, Predicate, Duration, PollStrategy)
+     */
+    public static void untilPath(Path path, Predicate<Path> predicate, Duration timeout) {
+        untilPath(path, predicate, timeout, PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)));
+    }
+
+    /**
+     * Wait till the predicate will become true for the path during at most {@code timeout}. Predicate is checked again
+     * as soon as the path's directory reports creation, modification or deletion of any of its entries. Pauses between
+     * checks without such events are defined by provided strategy; if the directory can't be watched at all (e.g. it
+     * does not exist yet) the path is only polled.
+     *
+     * @param path      path to check
+     * @param predicate required condition of the path
+     * @param timeout   max wait time
+     * @param strategy  poll strategy for checks without file system events
+     * @throws ConditionTimeoutException if condition was not satisfied in configured period. If the path was watched,
+     *                                   exception holds checks count and the slowest check time
+     * @throws IllegalArgumentException  if timeout is not positive
+     */
+    public static void untilPath(@NonNull Path path, @NonNull Predicate<Path> predicate, @NonNull Duration timeout,
+                                 @NonNull PollStrategy strategy) {
+        long timeoutNanos = positiveNanos(timeout);
+        Path directory = path.toAbsolutePath().getParent();
+        WatchService watcher = null;
+        if (directory != null) {
+            try {
+                watcher = directory.getFileSystem().newWatchService();
+                directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            } catch (IOException | UnsupportedOperationException e) {
+                closeQuietly(watcher);
+                watcher = null;
+            }
+        }
+        if (watcher == null) {
+            await(timeoutNanos, strategy, DEFAULT_FAILURE_MESSAGE, null, () -> path, predicate);
+            return;
+        }
+        try {
+            awaitPath(timeoutNanos, strategy, watcher, path, predicate);
+        } finally {
+            closeQuietly(watcher);
+        }
+    }
+
+    /**
+     * Wait till all conditions will become true during at most {@code timeout}. All pending conditions are checked on
+     * each poll step, satisfied ones are not checked again, so overall wait takes as long as the slowest condition
+     * rather than a sum of all of them. Conditions are checked each {@link Await#DEFAULT_STEP_MILLIS} millis.
+     *
+     * @param timeout    max wait time
+     * @param conditions required conditions
+     * @throws ConditionTimeoutException if some conditions were not satisfied in configured period. Unmet conditions
+     *                                   are named by their position, e.g. "#2"
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#waitUntilAll(Duration, PollStrategy, Executor, Map)
+     */
+    @SafeVarargs
+    public static void waitUntilAll(@NonNull Duration timeout, @NonNull Callable<Boolean>... conditions) {
+        awaitMany(positiveNanos(timeout), PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)), null,
+                byPosition(conditions), Await::positionLabel, true);
+    }
+
+    /**
+     * Wait till all named conditions will become true during at most {@code timeout}. Conditions are checked each
+     * {@link Await#DEFAULT_STEP_MILLIS} millis.
+     *
+     * @param timeout    max wait time
+     * @param conditions required conditions by their names
+     * @throws ConditionTimeoutException if some conditions were not satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#waitUntilAll(Duration, PollStrategy, Executor, Map)
+     */
+    public static void waitUntilAll(Duration timeout, Map<String, Callable<Boolean>> conditions) {
+        waitUntilAll(timeout, PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)), null, conditions);
+    }
+
+    /**
+     * Wait till all named conditions will become true during at most {@code timeout}. All pending conditions are
+     * checked on each poll step, in parallel if executor is provided. Satisfied conditions are not checked again.
+     *
+     * @param timeout    max wait time
+     * @param strategy   poll strategy
+     * @param executor   executor to check conditions on, if null - conditions are checked one by one in calling thread
+     * @param conditions required conditions by their names
+     * @throws ConditionTimeoutException if some conditions were not satisfied in configured period. Exception lists
+     *                                   names of all unmet conditions
+     * @throws IllegalArgumentException  if timeout is not positive
+     */
+    public static void waitUntilAll(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                    @Nullable Executor executor, @NonNull Map<String, Callable<Boolean>> conditions) {
+        awaitMany(positiveNanos(timeout), strategy, executor, conditions, Function.identity(), true);
+    }
+
+    /**
+     * Wait till any of conditions will become true during at most {@code timeout}. Conditions are checked each
+     * {@link Await#DEFAULT_STEP_MILLIS} millis.
+     *
+     * @param timeout    max wait time
+     * @param conditions required conditions
+     * @return position of satisfied condition
+     * @throws ConditionTimeoutException if none of conditions was satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#waitUntilAny(Duration, PollStrategy, Executor, Map)
+     */
+    @SafeVarargs
+    public static int waitUntilAny(@NonNull Duration timeout, @NonNull Callable<Boolean>... conditions) {
+        Preconditions.checkArgument(conditions.length > 0, "at least one condition is required");
+        return awaitMany(positiveNanos(timeout), PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)), null,
+                byPosition(conditions), Await::positionLabel, false);
+    }
+
+    /**
+     * Wait till any of named conditions will become true during at most {@code timeout}. Conditions are checked each
+     * {@link Await#DEFAULT_STEP_MILLIS} millis.
+     *
+     * @param timeout    max wait time
+     * @param conditions required conditions by their names
+     * @return name of satisfied condition
+     * @throws ConditionTimeoutException if none of conditions was satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     * @see Await#waitUntilAny(Duration, PollStrategy, Executor, Map)
+     */
+    public static String waitUntilAny(Duration timeout, Map<String, Callable<Boolean>> conditions) {
+        return waitUntilAny(timeout, PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)), null, conditions);
+    }
+
+    /**
+     * Wait till any of named conditions will become true during at most {@code timeout}. All conditions are checked
+     * on each poll step, in parallel if executor is provided.
+     *
+     * @param timeout    max wait time
+     * @param strategy   poll strategy
+     * @param executor   executor to check conditions on, if null - conditions are checked one by one in calling thread
+     * @param conditions required conditions by their names
+     * @return name of satisfied condition. If several conditions were satisfied on the same check, the first one in
+     * map iteration order is returned
+     * @throws ConditionTimeoutException if none of conditions was satisfied in configured period
+     * @throws IllegalArgumentException  if timeout is not positive or no conditions are provided
+     */
+    public static String waitUntilAny(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                      @Nullable Executor executor, @NonNull Map<String, Callable<Boolean>> conditions) {
+        Preconditions.checkArgument(!conditions.isEmpty(), "at least one condition is required");
+        return awaitMany(positiveNanos(timeout), strategy, executor, conditions, Function.identity(), false);
+    }
+
+    /**
+     * Same as {@link Await#waitUntil(int, int, Callable)}, but does not block calling thread. Condition is checked
+     * each {@code waitStepMillis} millis on a scheduler, shared by all async waits, so any number of concurrent waits
+     * costs just a few threads. Conditions should be fast not to delay each other, use
+     * {@link Await#untilAsync(int, int, String, ScheduledExecutorService, Callable)} with a dedicated scheduler for
+     * slow ones.
+     *
+     * @param timeout        max wait millis
+     * @param waitStepMillis step wait millis
+     * @param condition      required condition
+     * @return future, completed when condition is satisfied. It fails with {@link ConditionTimeoutException} if
+     * condition was not satisfied in configured period or with the exception thrown by condition
+     * @throws IllegalArgumentException if step millis are more or equal to overall wait millis
+     */
+    public static CompletableFuture<Void> untilAsync(int timeout, int waitStepMillis, Callable<Boolean> condition) {
+        return untilAsync(timeout, waitStepMillis, DEFAULT_FAILURE_MESSAGE, condition);
+    }
+
+    /**
+     * Same as {@link Await#waitUntil(int, int, String, Callable)}, but does not block calling thread. Condition is
+     * checked on a scheduler, shared by all async waits.
+     *
+     * @param timeout        max wait millis
+     * @param waitStepMillis step wait millis
+     * @param failureMessage message to see if waiting fails
+     * @param condition      required condition
+     * @return future, completed when condition is satisfied. It fails with {@link ConditionTimeoutException} if
+     * condition was not satisfied in configured period or with the exception thrown by condition
+     * @throws IllegalArgumentException if step millis are more or equal to overall wait millis
+     * @see Await#untilAsync(int, int, Callable)
+     */
+    public static CompletableFuture<Void> untilAsync(int timeout, int waitStepMillis, String failureMessage,
+                                                     Callable<Boolean> condition) {
+        return untilAsync(timeout, waitStepMillis, failureMessage, SchedulerHolder.SCHEDULER, condition);
+    }
+
+    /**
+     * Same as {@link Await#waitUntil(int, int, String, Callable)}, but does not block calling thread. Condition is
+     * checked on provided scheduler.
+     *
+     * @param timeout        max wait millis
+     * @param waitStepMillis step wait millis
+     * @param failureMessage message to see if waiting fails
+     * @param scheduler      scheduler to check condition on
+     * @param condition      required condition
+     * @return future, completed when condition is satisfied. It fails with {@link ConditionTimeoutException} if
+     * condition was not satisfied in configured period or with the exception thrown by condition. Cancelling the
+     * future stops further checks
+     * @throws IllegalArgumentException if step millis are more or equal to overall wait millis
+     */
+    public static CompletableFuture<Void> untilAsync(int timeout, int waitStepMillis, String failureMessage,
+                                                     @NonNull ScheduledExecutorService scheduler,
+                                                     @NonNull Callable<Boolean> condition) {
+        Preconditions.checkArgument(waitStepMillis > 0, "step sleep time should be positive");
+        Preconditions.checkArgument(waitStepMillis <= timeout, "step sleep time must be less or equal to timeout");
+
+        return ignoringValue(new AsyncCondition<>(scheduler, condition, Boolean::booleanValue, failureMessage,
+                MILLISECONDS.toNanos(timeout), PollStrategies.fixed(Duration.ofMillis(waitStepMillis))).start());
+    }
+
+    /**
+     * Same as {@link Await#waitUntil(Duration, PollStrategy, Callable)}, but does not block calling thread. Condition
+     * is checked on a scheduler, shared by all async waits.
+     *
+     * @param timeout   max wait time
+     * @param strategy  poll strategy
+     * @param condition required condition
+     * @return future, completed when condition is satisfied. It fails with {@link ConditionTimeoutException} if
+     * condition was not satisfied in configured period or with the exception thrown by condition
+     * @throws IllegalArgumentException if timeout is not positive
+     * @see Await#untilAsync(int, int, Callable)
+     */
+    public static CompletableFuture<Void> untilAsync(Duration timeout, PollStrategy strategy,
+                                                     Callable<Boolean> condition) {
+        return untilAsync(timeout, strategy, DEFAULT_FAILURE_MESSAGE, SchedulerHolder.SCHEDULER, condition);
+    }
+
+    /**
+     * Same as {@link Await#waitUntil(Duration, PollStrategy, String, Callable)}, but does not block calling thread.
+     * Condition is checked on provided scheduler. Strategies, that spin or yield instead of pausing, are driven only
+     * by their {@link PollStrategy#delayNanos(int)} here.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param scheduler      scheduler to check condition on
+     * @param condition      required condition
+     * @return future, completed when condition is satisfied. It fails with {@link ConditionTimeoutException} if
+     * condition was not satisfied in configured period or with the exception thrown by condition. Cancelling the
+     * future stops further checks
+     * @throws IllegalArgumentException if timeout is not positive
+     */
+    public static CompletableFuture<Void> untilAsync(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                                     String failureMessage,
+                                                     @NonNull ScheduledExecutorService scheduler,
+                                                     @NonNull Callable<Boolean> condition) {
+        return ignoringValue(new AsyncCondition<>(scheduler, condition, Boolean::booleanValue, failureMessage,
+                positiveNanos(timeout), strategy).start());
+    }
+
+    /**
+     * Probe the value till it is accepted during at most {@code timeout} and return it. Unlike
+     * {@link Await#waitUntil(Duration, PollStrategy, Callable)} with a separate lookup afterwards, each check makes
+     * exactly one probe. Probe is made each {@link Await#DEFAULT_STEP_MILLIS} millis.
+     *
+     * <pre>{@code
+     *     Order order = Await.waitFor(Duration.ofSeconds(30), () -> orders.find(id), Objects::nonNull);
+     * }</pre>
+     *
+     * @param timeout max wait time
+     * @param probe   value lookup
+     * @param accept  condition, the value should match
+     * @param <T>     value type
+     * @return the first accepted value
+     * @throws ConditionTimeoutException if no value was accepted in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     */
+    public static <T> T waitFor(Duration timeout, Callable<T> probe, Predicate<? super T> accept) {
+        return waitFor(timeout, PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)), DEFAULT_FAILURE_MESSAGE,
+                probe, accept);
+    }
+
+    /**
+     * Probe the value till it is accepted during at most {@code timeout} and return it. Pauses between probes are
+     * defined by provided strategy.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param probe          value lookup
+     * @param accept         condition, the value should match
+     * @param <T>            value type
+     * @return the first accepted value
+     * @throws ConditionTimeoutException if no value was accepted in configured period
+     * @throws IllegalArgumentException  if timeout is not positive
+     */
+    public static <T> T waitFor(@NonNull Duration timeout, @NonNull PollStrategy strategy, String failureMessage,
+                                @NonNull Callable<T> probe, @NonNull Predicate<? super T> accept) {
+        return await(positiveNanos(timeout), strategy, failureMessage, null, probe, accept);
+    }
+
+    /**
+     * Same as {@link Await#waitFor(Duration, Callable, Predicate)}, but does not block calling thread. Value is probed
+     * on a scheduler, shared by all async waits.
+     *
+     * @param timeout max wait time
+     * @param probe   value lookup
+     * @param accept  condition, the value should match
+     * @param <T>     value type
+     * @return future, completed with the first accepted value. It fails with {@link ConditionTimeoutException} if no
+     * value was accepted in configured period or with the exception thrown by probe
+     * @throws IllegalArgumentException if timeout is not positive
+     */
+    public static <T> CompletableFuture<T> waitForAsync(Duration timeout, Callable<T> probe,
+                                                        Predicate<? super T> accept) {
+        return waitForAsync(timeout, PollStrategies.fixed(Duration.ofMillis(DEFAULT_STEP_MILLIS)),
+                DEFAULT_FAILURE_MESSAGE, SchedulerHolder.SCHEDULER, probe, accept);
+    }
+
+    /**
+     * Same as {@link Await#waitFor(Duration, PollStrategy, String, Callable, Predicate)}, but does not block calling
+     * thread. Value is probed on provided scheduler.
+     *
+     * @param timeout        max wait time
+     * @param strategy       poll strategy
+     * @param failureMessage message to see if waiting fails
+     * @param scheduler      scheduler to probe value on
+     * @param probe          value lookup
+     * @param accept         condition, the value should match
+     * @param <T>            value type
+     * @return future, completed with the first accepted value. It fails with {@link ConditionTimeoutException} if no
+     * value was accepted in configured period or with the exception thrown by probe. Cancelling the future stops
+     * further probes
+     * @throws IllegalArgumentException if timeout is not positive
+     */
+    public static <T> CompletableFuture<T> waitForAsync(@NonNull Duration timeout, @NonNull PollStrategy strategy,
+                                                        String failureMessage,
+                                                        @NonNull ScheduledExecutorService scheduler,
+                                                        @NonNull Callable<T> probe,
+                                                        @NonNull Predicate<? super T> accept) {
+        return new AsyncCondition<>(scheduler, probe, accept, failureMessage, positiveNanos(timeout), strategy)
+                .start();
+    }
+
+    /**
+     * Hide the accepted value from async condition result, keeping cancellation working both ways
+     */
+    private static CompletableFuture<Void> ignoringValue(CompletableFuture<?> check) {
+        CompletableFuture<Void> result = check.thenApply(value -> null);
+        result.whenComplete((ignored, e) -> check.cancel(false));
+        return result;
+    }
+
+    /**
+     * Probe the value till it is accepted or time is out, pausing between probes as strategy says. If signal is
+     * provided, pauses are interrupted by it.
+     */
+    private static <T> T await(long timeoutNanos, PollStrategy strategy, String failureMessage, Signal signal,
+                               Callable<T> probe, Predicate<? super T> accept) {
         Stopwatch stopwatch = Stopwatch.createStarted();
-        while (stopwatch.elapsed(MILLISECONDS) < timeout) {
+        int attempt = 0;
+        while (stopwatch.elapsed(NANOSECONDS) < timeoutNanos) {
             try {
-                if (condition.call()) {
-                    return;
+                long generation = signal != null ? signal.generation() : 0;
+                T value = probe.call();
+                if (accept.test(value)) {
+                    return value;
+                }
+                attempt++;
+                long remaining = timeoutNanos - stopwatch.elapsed(NANOSECONDS);
+                if (signal != null) {
+                    signal.await(generation, Math.min(strategy.delayNanos(attempt), remaining));
+                } else {
+                    strategy.idle(attempt, remaining);
                 }
-                sleep(waitStepMillis);
             } catch (Exception e) {
                 throw propagate(e);
             }
         }
         throw new ConditionTimeoutException(failureMessage);
     }
+
+    private static void awaitBounded(long timeoutNanos, PollStrategy strategy, String failureMessage,
+                                     ExecutorService executor, Callable<Boolean> condition) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int attempt = 0;
+        long slowestNanos = 0;
+        long remaining;
+        while ((remaining = timeoutNanos - stopwatch.elapsed(NANOSECONDS)) > 0) {
+            long started = System.nanoTime();
+            Future<Boolean> check = executor.submit(condition);
+            try {
+                boolean satisfied;
+                try {
+                    long left = remaining;
+                    satisfied = ManagedPark.block(() -> check.get(left, NANOSECONDS));
+                } catch (TimeoutException e) {
+                    check.cancel(true);
+                    satisfied = false;
+                } finally {
+                    attempt++;
+                    slowestNanos = Math.max(slowestNanos, System.nanoTime() - started);
+                }
+                if (satisfied) {
+                    return;
+                }
+                strategy.idle(attempt, timeoutNanos - stopwatch.elapsed(NANOSECONDS));
+            } catch (ExecutionException e) {
+                throw propagate(e.getCause());
+            } catch (Exception e) {
+                check.cancel(true);
+                throw propagate(e);
+            }
+        }
+        throw new ConditionTimeoutException(failureMessage, attempt, Duration.ofNanos(slowestNanos));
+    }
+
+    private static void awaitPath(long timeoutNanos, PollStrategy strategy, WatchService watcher, Path path,
+                                  Predicate<Path> predicate) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int attempt = 0;
+        long slowestNanos = 0;
+        boolean watching = true;
+        while (stopwatch.elapsed(NANOSECONDS) < timeoutNanos) {
+            long started = System.nanoTime();
+            boolean satisfied = predicate.test(path);
+            attempt++;
+            slowestNanos = Math.max(slowestNanos, System.nanoTime() - started);
+            if (satisfied) {
+                return;
+            }
+            long remaining = timeoutNanos - stopwatch.elapsed(NANOSECONDS);
+            try {
+                if (!watching) {
+                    strategy.idle(attempt, remaining);
+                    continue;
+                }
+                long pollNanos = Math.min(strategy.delayNanos(attempt), remaining);
+                WatchKey key = ManagedPark.block(() -> watcher.poll(pollNanos, NANOSECONDS));
+                if (key != null) {
+                    key.pollEvents();
+                    // directory is gone, nothing to watch anymore
+                    watching = key.reset();
+                }
+            } catch (Exception e) {
+                throw propagate(e);
+            }
+        }
+        throw new ConditionTimeoutException(DEFAULT_FAILURE_MESSAGE, attempt, Duration.ofNanos(slowestNanos));
+    }
+
+    private static void closeQuietly(@Nullable WatchService watcher) {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignored) {
+                // nothing to do, wait is over anyway
+            }
+        }
+    }
+
+    /**
+     * Check pending conditions till all (or any) of them are satisfied or time is out.
+     *
+     * @param label names conditions in timeout exception
+     * @return key of the first satisfied condition if waiting for any, null otherwise
+     */
+    private static <K> K awaitMany(long timeoutNanos, PollStrategy strategy, Executor executor,
+                                   Map<K, Callable<Boolean>> conditions, Function<? super K, String> label,
+                                   boolean all) {
+        Map<K, Callable<Boolean>> pending = new LinkedHashMap<>(conditions);
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int attempt = 0;
+        while (!pending.isEmpty() && stopwatch.elapsed(NANOSECONDS) < timeoutNanos) {
+            try {
+                K satisfied = checkPending(pending, executor, timeoutNanos - stopwatch.elapsed(NANOSECONDS));
+                if (!all && satisfied != null) {
+                    return satisfied;
+                }
+                if (pending.isEmpty()) {
+                    return null;
+                }
+                attempt++;
+                strategy.idle(attempt, timeoutNanos - stopwatch.elapsed(NANOSECONDS));
+            } catch (Exception e) {
+                throw propagate(e);
+            }
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        throw new ConditionTimeoutException(DEFAULT_FAILURE_MESSAGE,
+                pending.keySet().stream().map(label).collect(Collectors.toList()));
+    }
+
+    /**
+     * Check all pending conditions once and drop satisfied ones. Checks running on executor are awaited till the wait
+     * is out of time, then cancelled and left pending
+     *
+     * @return key of the first satisfied condition or null if none is satisfied
+     */
+    private static <K> K checkPending(Map<K, Callable<Boolean>> pending, Executor executor, long remainingNanos)
+            throws Exception {
+        long deadline = System.nanoTime() + remainingNanos;
+        Map<K, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        if (executor != null) {
+            pending.forEach((name, condition) -> checks.put(name, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return condition.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor)));
+        }
+        K satisfied = null;
+        try {
+            for (Iterator<Map.Entry<K, Callable<Boolean>>> iterator = pending.entrySet().iterator();
+                 iterator.hasNext(); ) {
+                Map.Entry<K, Callable<Boolean>> entry = iterator.next();
+                if (executor == null ? entry.getValue().call() : getCheck(checks.get(entry.getKey()), deadline)) {
+                    iterator.remove();
+                    satisfied = satisfied == null ? entry.getKey() : satisfied;
+                }
+            }
+        } finally {
+            // abandon checks still running after a failure or timeout
+            checks.values().forEach(check -> check.cancel(true));
+        }
+        return satisfied;
+    }
+
+    /**
+     * @return check result, or false if it's not done till the deadline
+     */
+    private static boolean getCheck(CompletableFuture<Boolean> check, long deadline) throws Exception {
+        try {
+            long left = Math.max(deadline - System.nanoTime(), 0);
+            return ManagedPark.block(() -> check.get(left, NANOSECONDS));
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    @SafeVarargs
+    private static Map<Integer, Callable<Boolean>> byPosition(Callable<Boolean>... conditions) {
+        Map<Integer, Callable<Boolean>> positioned = new LinkedHashMap<>();
+        for (int i = 0; i < conditions.length; i++) {
+            positioned.put(i, conditions[i]);
+        }
+        return positioned;
+    }
+
+    private static String positionLabel(int position) {
+        return "#" + position;
+    }
+
+    private static long positiveNanos(Duration timeout) {
+        Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero(), "timeout should be positive");
+        return timeout.toNanos();
+    }
+
+    /**
+     * Lazy holder of default executor for bounded waits, conditions are checked on its daemon threads so that a hung
+     * check can be abandoned. No threads are started until the first bounded wait
+     */
+    private static class EvaluatorHolder {
+        private static final ExecutorService EVALUATOR = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("await-evaluator-%d").build());
+    }
+
+    /**
+     * Lazy holder of default scheduler for async waits, no threads are started until the first async wait
+     */
+    private static class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(
+                Math.min(4, Runtime.getRuntime().availableProcessors()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("await-scheduler-%d").build());
+    }
 }
@@ -9,13 +9,73 @@
  */
 package com.github.nginate.commons.lang.await;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Exception to be thrown if wait condition was not satisfied in provided period
  *
  * @since 1.0
  */
 public class ConditionTimeoutException extends RuntimeException {
+    /**
+     * Names of conditions that were still not satisfied when time was out, if several conditions were awaited at once
+     */
+    private final List<String> unmetConditions;
+    /**
+     * Number of condition checks made, if tracked
+     */
+    private final int attempts;
+    /**
+     * Time the slowest condition check took, if tracked
+     */
+    private final Duration slowestAttempt;
+
     public ConditionTimeoutException(String message) {
         super(message);
+        this.unmetConditions = Collections.emptyList();
+        this.attempts = 0;
+        this.slowestAttempt = Duration.ZERO;
+    }
+
+    public ConditionTimeoutException(String message, Collection<String> unmetConditions) {
+        super(message + ", unmet conditions: " + unmetConditions);
+        this.unmetConditions = Collections.unmodifiableList(new ArrayList<>(unmetConditions));
+        this.attempts = 0;
+        this.slowestAttempt = Duration.ZERO;
+    }
+
+    public ConditionTimeoutException(String message, int attempts, Duration slowestAttempt) {
+        super(message + ", attempts: " + attempts + ", slowest attempt: " + slowestAttempt.toMillis() + "ms");
+        this.unmetConditions = Collections.emptyList();
+        this.attempts = attempts;
+        this.slowestAttempt = slowestAttempt;
+    }
+
+    /**
+     * @return names of conditions that were not satisfied, empty if single condition was awaited
+     * @since 1.0.1
+     */
+    public List<String> getUnmetConditions() {
+        return unmetConditions;
+    }
+
+    /**
+     * @return number of condition checks made, zero if not tracked
+     * @since 1.0.1
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return time the slowest condition check took, zero if not tracked
+     * @since 1.0.1
+     */
+    public Duration getSlowestAttempt() {
+        return slowestAttempt;
     }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.await;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timed park that is reported to {@link ForkJoinPool} as a blocking operation, so a pool running waiting tasks (e.g.
+ * parallel streams or async completions in common pool) may add a compensating worker instead of being starved by
+ * its parked threads. Outside of fork join pools it is a plain park. Other blocking calls of waits are reported the
+ * same way via {@link ManagedPark#block(Callable)}.
+ *
+ * @since 1.0.1
+ */
+final class ManagedPark implements ForkJoinPool.ManagedBlocker {
+    private final Signal signal;
+    private final long seenGeneration;
+    private final long deadline;
+
+    private ManagedPark(Signal signal, long seenGeneration, long nanos) {
+        this.signal = signal;
+        this.seenGeneration = seenGeneration;
+        this.deadline = System.nanoTime() + nanos;
+    }
+
+    /**
+     * Park current thread for the provided time
+     *
+     * @param nanos time to park
+     * @throws InterruptedException if current thread was interrupted while parked
+     */
+    static void park(long nanos) throws InterruptedException {
+        park(null, 0, nanos);
+    }
+
+    /**
+     * Park current thread for the provided time or until signal is sent after provided generation
+     *
+     * @param signal         signal to wake up on, null to park for the whole time
+     * @param seenGeneration signal generation seen before the last condition check
+     * @param nanos          max time to park
+     * @throws InterruptedException if current thread was interrupted while parked
+     */
+    static void park(@Nullable Signal signal, long seenGeneration, long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            ForkJoinPool.managedBlock(new ManagedPark(signal, seenGeneration, nanos));
+        }
+    }
+
+    /**
+     * Run blocking call, reporting it to enclosing {@link ForkJoinPool}
+     *
+     * @param call blocking call, e.g. timed get of a future
+     * @param <T>  call result type
+     * @return call result
+     * @throws Exception any exception thrown by the call
+     */
+    static <T> T block(Callable<T> call) throws Exception {
+        BlockingCall<T> blocker = new BlockingCall<>(call);
+        ForkJoinPool.managedBlock(blocker);
+        if (blocker.failure != null) {
+            throw blocker.failure;
+        }
+        return blocker.result;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0 && !signalled()) {
+            LockSupport.parkNanos(signal != null ? signal : this, remaining);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return isReleasable();
+    }
+
+    @Override
+    public boolean isReleasable() {
+        return signalled() || deadline - System.nanoTime() <= 0;
+    }
+
+    private boolean signalled() {
+        return signal != null && signal.generation() != seenGeneration;
+    }
+
+    private static final class BlockingCall<T> implements ForkJoinPool.ManagedBlocker {
+        private final Callable<T> call;
+        private T result;
+        private Exception failure;
+        private boolean done;
+
+        BlockingCall(Callable<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                result = call.call();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.await;
+
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Common poll strategies to be used with {@link Await}
+ *
+ * @since 1.0.1
+ */
+@UtilityClass
+public class PollStrategies {
+
+    /**
+     * Check condition with constant pause between checks
+     *
+     * @param step pause between checks
+     * @return fixed step strategy
+     * @throws IllegalArgumentException if step is not positive
+     */
+    public static PollStrategy fixed(@NonNull Duration step) {
+        long stepNanos = positiveNanos(step, "step");
+        return attempt -> stepNanos;
+    }
+
+    /**
+     * Check condition with pause, doubling after each failed check till it reaches the cap. Good for expensive checks:
+     * quick conditions are caught early, slow ones do not get hammered.
+     *
+     * @param initial pause after the first check
+     * @param max     max pause between checks
+     * @return exponential backoff strategy
+     * @throws IllegalArgumentException if pauses are not positive or initial pause is greater than max
+     * @see PollStrategies#exponential(Duration, double, Duration)
+     */
+    public static PollStrategy exponential(@NonNull Duration initial, @NonNull Duration max) {
+        return exponential(initial, 2, max);
+    }
+
+    /**
+     * Check condition with pause, multiplied by provided factor after each failed check till it reaches the cap.
+     *
+     * @param initial    pause after the first check
+     * @param multiplier pause growth factor, at least 1
+     * @param max        max pause between checks
+     * @return exponential backoff strategy
+     * @throws IllegalArgumentException if pauses are not positive, initial pause is greater than max or multiplier is
+     *                                  less than 1
+     */
+    public static PollStrategy exponential(@NonNull Duration initial, double multiplier, @NonNull Duration max) {
+        long initialNanos = positiveNanos(initial, "initial pause");
+        long maxNanos = positiveNanos(max, "max pause");
+        Preconditions.checkArgument(initialNanos <= maxNanos, "initial pause must be less or equal to max pause");
+        Preconditions.checkArgument(multiplier >= 1, "multiplier must be at least 1");
+        return attempt -> (long) Math.min(maxNanos, initialNanos * Math.pow(multiplier, attempt - 1));
+    }
+
+    /**
+     * Randomize pauses of provided strategy, so that many waiters, started at the same time, do not check their
+     * conditions all at once. Each pause is randomly shortened by at most {@code ratio} of its length. Pausing is still
+     * done by provided strategy, so e.g. spins and yields of {@link PollStrategies#adaptive} are kept.
+     *
+     * @param strategy strategy to randomize
+     * @param ratio    max share of pause to cut, between 0 and 1
+     * @return jittered strategy
+     * @throws IllegalArgumentException if ratio is out of range
+     */
+    public static PollStrategy jittered(@NonNull PollStrategy strategy, double ratio) {
+        Preconditions.checkArgument(ratio >= 0 && ratio <= 1, "jitter ratio must be between 0 and 1");
+        return new JitteredStrategy(strategy, ratio);
+    }
+
+    /**
+     * Strategy for conditions expected to be satisfied within microseconds. First checks go back to back, busy
+     * spinning, then thread yields between checks, and after that it parks, doubling the pause from {@code minPark}
+     * till {@code maxPark}.
+     *
+     * @param spins   number of checks to do without pause
+     * @param yields  number of checks to do after yielding
+     * @param minPark first park pause
+     * @param maxPark max park pause
+     * @return spin-yield-park strategy
+     * @throws IllegalArgumentException if counts are negative, pauses are not positive or min pause is greater than max
+     */
+    public static PollStrategy adaptive(int spins, int yields, @NonNull Duration minPark, @NonNull Duration maxPark) {
+        Preconditions.checkArgument(spins >= 0, "spins count must not be negative");
+        Preconditions.checkArgument(yields >= 0, "yields count must not be negative");
+        return new AdaptiveStrategy(spins, yields, exponential(minPark, maxPark));
+    }
+
+    private static long positiveNanos(Duration duration, String name) {
+        Preconditions.checkArgument(!duration.isNegative() && !duration.isZero(), "%s should be positive", name);
+        return duration.toNanos();
+    }
+
+    private static class JitteredStrategy implements PollStrategy {
+        private final PollStrategy strategy;
+        private final double ratio;
+
+        JitteredStrategy(PollStrategy strategy, double ratio) {
+            this.strategy = strategy;
+            this.ratio = ratio;
+        }
+
+        @Override
+        public long delayNanos(int attempt) {
+            long delay = strategy.delayNanos(attempt);
+            return delay - (long) (delay * ratio * ThreadLocalRandom.current().nextDouble());
+        }
+
+        @Override
+        public void idle(int attempt, long maxNanos) throws InterruptedException {
+            // wrapped strategy never pauses longer than max nanos, so capping them jitters its park
+            long delay = delayNanos(attempt);
+            strategy.idle(attempt, delay > 0 ? Math.min(delay, maxNanos) : maxNanos);
+        }
+    }
+
+    private static class AdaptiveStrategy implements PollStrategy {
+        private final int spins;
+        private final int yields;
+        private final PollStrategy parking;
+
+        AdaptiveStrategy(int spins, int yields, PollStrategy parking) {
+            this.spins = spins;
+            this.yields = yields;
+            this.parking = parking;
+        }
+
+        @Override
+        public long delayNanos(int attempt) {
+            return attempt <= spins + yields ? 0 : parking.delayNanos(attempt - spins - yields);
+        }
+
+        @Override
+        public void idle(int attempt, long maxNanos) throws InterruptedException {
+            if (attempt <= spins) {
+                return;
+            }
+            if (attempt <= spins + yields) {
+                Thread.yield();
+                return;
+            }
+            ManagedPark.park(Math.min(delayNanos(attempt), maxNanos));
+        }
+    }
+}
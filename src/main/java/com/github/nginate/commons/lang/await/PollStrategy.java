@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.await;
+
+/**
+ * Defines how long to wait between condition checks. Strategy gets the number of failed checks so far, so it may
+ * check often at first and back off later, or vice versa. Implementations must be thread-safe, since one strategy may
+ * drive many waits at once.
+ *
+ * @see PollStrategies
+ * @since 1.0.1
+ */
+@FunctionalInterface
+public interface PollStrategy {
+    /**
+     * Compute pause before the next condition check.
+     *
+     * @param attempt number of failed condition checks so far, starting from 1
+     * @return nanos to wait before the next check, zero to check again immediately
+     */
+    long delayNanos(int attempt);
+
+    /**
+     * Pause current thread before the next condition check. Parks the thread for {@link PollStrategy#delayNanos(int)}
+     * by default, reporting it to enclosing {@link java.util.concurrent.ForkJoinPool} as blocking, strategies may
+     * override it to e.g. spin or yield instead.
+     *
+     * @param attempt  number of failed condition checks so far, starting from 1
+     * @param maxNanos time left till the end of wait, pause must not be longer
+     * @throws InterruptedException if current thread was interrupted while waiting
+     */
+    default void idle(int attempt, long maxNanos) throws InterruptedException {
+        ManagedPark.park(Math.min(delayNanos(attempt), maxNanos));
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.await;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Notification channel between the code that changes some state and the code that waits for it. Producer calls
+ * {@link Signal#signal()} after each change, waiters, parked in {@link Await}, wake up and check their conditions
+ * immediately instead of sleeping till the end of poll step.
+ *
+ * <pre>{@code
+ *     Signal started = new Signal();
+ *     // waiter
+ *     Await.waitUntilSignalled(30000, started, () -> service.isStarted());
+ *     // producer
+ *     service.start();
+ *     started.signal();
+ * }</pre>
+ *
+ * Signals are not remembered: condition is always the source of truth, while signal is only a hint to check it. Poll
+ * step still applies as a safety net for changes that were not signalled.
+ *
+ * @since 1.0.1
+ */
+public class Signal {
+    /**
+     * Number of signals so far. Waiters compare it with the value seen before checking condition, so signal sent in
+     * between is not lost
+     */
+    private final AtomicLong generation = new AtomicLong();
+    /**
+     * Threads parked on this signal
+     */
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Wake up all threads waiting on this signal to let them check their conditions
+     */
+    public void signal() {
+        generation.incrementAndGet();
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * @return current signal generation, to be passed to {@link Signal#await(long, long)} later
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Park current thread until signal is sent after provided generation or until timeout expires.
+     *
+     * @param seenGeneration generation seen before the last condition check
+     * @param timeoutNanos   max time to wait
+     * @throws InterruptedException if current thread was interrupted while waiting
+     */
+    void await(long seenGeneration, long timeoutNanos) throws InterruptedException {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            ManagedPark.park(this, seenGeneration, timeoutNanos);
+        } finally {
+            waiters.remove(current);
+        }
+    }
+}
@@ -9,15 +9,32 @@
  */
 package com.github.nginate.commons.lang.function;
 
+import com.github.nginate.commons.lang.function.memoize.AsyncFunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.BiFunctionMemoizer;
 import com.github.nginate.commons.lang.function.memoize.FunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.IntFunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.IntUnaryOperatorMemoizer;
+import com.github.nginate.commons.lang.function.memoize.LongFunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.LongToIntFunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.MemoizeSpec;
+import com.github.nginate.commons.lang.function.memoize.MemoizedFunction;
+import com.github.nginate.commons.lang.function.memoize.MemoizedSupplier;
+import com.github.nginate.commons.lang.function.memoize.RecursiveFunctionMemoizer;
 import com.github.nginate.commons.lang.function.memoize.SupplierMemoizer;
+import com.github.nginate.commons.lang.function.memoize.TriFunctionMemoizer;
 import com.github.nginate.commons.lang.function.unchecked.UConsumer;
 import com.github.nginate.commons.lang.function.unchecked.URunnable;
 import com.google.common.base.Throwables;
 import lombok.experimental.UtilityClass;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongToIntFunction;
 import java.util.function.Supplier;
 
 /**
@@ -40,6 +57,25 @@ public class NFunctions {
         return new SupplierMemoizer<T>().doMemoize(supplier);
     }
 
+    /**
+     * Wrap supplier to compute and cache its output, expiring or refreshing it as spec says
+     *
+     * <pre>{@code
+     *     Supplier<Token> token = NFunctions.memoize(this::requestToken,
+     *             MemoizeSpec.builder().refreshAfterWrite(Duration.ofMinutes(5)).build());
+     * }</pre>
+     *
+     * @param supplier supplier to wrap
+     * @param spec     expiration and refresh settings, size limits are not applicable
+     * @param <T>      output type
+     * @return memoized supplier of same type, giving access to its stats
+     * @see SupplierMemoizer#SupplierMemoizer(MemoizeSpec)
+     * @since 1.0.1
+     */
+    public static <T> MemoizedSupplier<T> memoize(Supplier<T> supplier, MemoizeSpec<?, ? super T> spec) {
+        return new SupplierMemoizer<T>(spec).doMemoize(supplier);
+    }
+
     /**
      * Wrap function to compute and cache its output
      *
@@ -53,6 +89,147 @@ public class NFunctions {
         return new FunctionMemoizer<T, U>().doMemoize(function);
     }
 
+    /**
+     * Wrap function to compute and cache its output, keeping cache within limits of provided spec and expiring or
+     * refreshing results as spec says
+     *
+     * <pre>{@code
+     *     Function<String, Profile> profiles = NFunctions.memoize(this::loadProfile,
+     *             MemoizeSpec.builder().maximumSize(10_000).build());
+     * }</pre>
+     *
+     * @param function function to wrap
+     * @param spec     cache limits and expiration
+     * @param <T>      input type
+     * @param <U>      output type
+     * @return memoized function of same type, giving access to its stats
+     * @see FunctionMemoizer#FunctionMemoizer(MemoizeSpec)
+     * @since 1.0.1
+     */
+    public static <T, U> MemoizedFunction<T, U> memoize(Function<T, U> function,
+                                                        MemoizeSpec<? super T, ? super U> spec) {
+        return new FunctionMemoizer<T, U>(spec).doMemoize(function);
+    }
+
+    /**
+     * Wrap function of two arguments to compute and cache its output. Cache hit does not allocate a key object, unlike
+     * memoizing a function of a tuple
+     *
+     * @param function function to wrap
+     * @param <T>      first input type
+     * @param <U>      second input type
+     * @param <R>      output type
+     * @return memoized function of same type
+     * @see BiFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <T, U, R> BiFunction<T, U, R> memoize(BiFunction<T, U, R> function) {
+        return new BiFunctionMemoizer<T, U, R>().doMemoize(function);
+    }
+
+    /**
+     * Wrap function of three arguments to compute and cache its output without allocating a key object on cache hit
+     *
+     * @param function function to wrap
+     * @param <T>      first input type
+     * @param <U>      second input type
+     * @param <V>      third input type
+     * @param <R>      output type
+     * @return memoized function of same type
+     * @see TriFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <T, U, V, R> TriFunction<T, U, V, R> memoize(TriFunction<T, U, V, R> function) {
+        return new TriFunctionMemoizer<T, U, V, R>().doMemoize(function);
+    }
+
+    /**
+     * Wrap asynchronous function to cache its results. Concurrent calls for the same input share a single pending
+     * load, failed loads are not cached.
+     *
+     * @param function function to wrap
+     * @param <T>      input type
+     * @param <U>      output type
+     * @return memoized function of same type
+     * @see AsyncFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <T, U> Function<T, CompletableFuture<U>> memoizeAsync(Function<T, CompletableFuture<U>> function) {
+        return new AsyncFunctionMemoizer<T, U>().doMemoize(function);
+    }
+
+    /**
+     * Wrap self-recursive function to compute and cache its output. Function gets its memoized version as the first
+     * argument and should use it for recursive calls, so each input is computed once.
+     *
+     * <pre>{@code
+     *     Function<Integer, BigInteger> fibonacci = NFunctions.memoizeRecursive((self, n) -> n < 2
+     *             ? BigInteger.valueOf(n)
+     *             : self.apply(n - 1).add(self.apply(n - 2)));
+     * }</pre>
+     *
+     * @param function function of its own memoized version and input
+     * @param <T>      input type
+     * @param <U>      output type
+     * @return memoized function
+     * @see RecursiveFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <T, U> Function<T, U> memoizeRecursive(BiFunction<Function<T, U>, T, U> function) {
+        return new RecursiveFunctionMemoizer<T, U>().doMemoize(function);
+    }
+
+    /**
+     * Wrap function of int to compute and cache its output without boxing inputs. Named differently from
+     * {@link NFunctions#memoize(Function)} to keep lambdas unambiguous.
+     *
+     * @param function function to wrap
+     * @param <U>      output type
+     * @return memoized function of same type
+     * @see IntFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <U> IntFunction<U> memoizeInt(IntFunction<U> function) {
+        return new IntFunctionMemoizer<U>().doMemoize(function);
+    }
+
+    /**
+     * Wrap function of long to compute and cache its output without boxing inputs
+     *
+     * @param function function to wrap
+     * @param <U>      output type
+     * @return memoized function of same type
+     * @see LongFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static <U> LongFunction<U> memoizeLong(LongFunction<U> function) {
+        return new LongFunctionMemoizer<U>().doMemoize(function);
+    }
+
+    /**
+     * Wrap int to int function to compute and cache its output without boxing
+     *
+     * @param function function to wrap
+     * @return memoized function of same type
+     * @see IntUnaryOperatorMemoizer
+     * @since 1.0.1
+     */
+    public static IntUnaryOperator memoizeIntToInt(IntUnaryOperator function) {
+        return new IntUnaryOperatorMemoizer().doMemoize(function);
+    }
+
+    /**
+     * Wrap long to int function to compute and cache its output without boxing
+     *
+     * @param function function to wrap
+     * @return memoized function of same type
+     * @see LongToIntFunctionMemoizer
+     * @since 1.0.1
+     */
+    public static LongToIntFunction memoizeLongToInt(LongToIntFunction function) {
+        return new LongToIntFunctionMemoizer().doMemoize(function);
+    }
+
     /**
      * Transform unsafe runnable into simple runnable to use with e.g. some legacy code. All checked exceptions will be
      * wrapped in a RuntimeException
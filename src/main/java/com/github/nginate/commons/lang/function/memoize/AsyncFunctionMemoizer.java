@@ -0,0 +1,80 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Cache of asynchronous function results. Pending load is cached as well, so concurrent callers for the same input
+ * share a single load instead of starting their own. Failed or cancelled results are evicted to let the next call
+ * try again.
+ * <p>
+ * Unlike {@link FunctionMemoizer} the cache is not updated with {@link ConcurrentHashMap#computeIfAbsent}: load is
+ * started outside of map locks, so slow loads don't block other inputs that share the same hash bin.
+ *
+ * @param <T> input type
+ * @param <U> result type
+ * @since 1.0.1
+ */
+public class AsyncFunctionMemoizer<T, U> {
+    /**
+     * Local cache for functions' results, both completed and pending
+     */
+    private final ConcurrentMap<T, CompletableFuture<U>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Get cached or pending result of provided function, or start loading it.
+     *
+     * @param function function to load something from input asynchronously
+     * @return future result (from cache if present). Cancelling it cancels the load for all callers
+     */
+    public Function<T, CompletableFuture<U>> doMemoize(Function<T, CompletableFuture<U>> function) {
+        return input -> {
+            CompletableFuture<U> cached = cache.get(input);
+            if (cached != null) {
+                return cached;
+            }
+            CompletableFuture<U> result = new CompletableFuture<>();
+            cached = cache.putIfAbsent(input, result);
+            if (cached != null) {
+                return cached;
+            }
+            // evict result failed by callers, e.g. cancelled
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    cache.remove(input, result);
+                }
+            });
+            try {
+                function.apply(input).whenComplete((value, error) -> {
+                    if (error != null) {
+                        // evict before completion so callers retrying on failure start a new load
+                        cache.remove(input, result);
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                cache.remove(input, result);
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                // concurrent callers already got the pending result, it must not hang
+                cache.remove(input, result);
+                result.completeExceptionally(e);
+                throw e;
+            }
+            return result;
+        };
+    }
+}
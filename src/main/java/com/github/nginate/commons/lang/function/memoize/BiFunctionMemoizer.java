@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.BiFunction;
+
+/**
+ * Cache of BiFunction results keyed by both arguments. Unlike memoizing a function of a tuple, a cache hit does not
+ * build a key object: arguments are hashed and compared as they are, a composite key is created only when a result is
+ * stored. Results are computed outside of table locks, null results are not cached.
+ *
+ * @param <T> first input type
+ * @param <U> second input type
+ * @param <R> result type
+ * @since 1.0.1
+ */
+public class BiFunctionMemoizer<T, U, R> {
+    /**
+     * Local cache for functions' results
+     */
+    private final CompositeKeyTable<R> cache = new CompositeKeyTable<>();
+
+    /**
+     * Try to get already preloaded results of provided function, or compute and save in cache.
+     *
+     * @param function function to compute something from inputs
+     * @return memoized function
+     */
+    public BiFunction<T, U, R> doMemoize(BiFunction<T, U, R> function) {
+        return (first, second) -> {
+            R cached = cache.get(first, second, null);
+            if (cached != null) {
+                return cached;
+            }
+            R computed = function.apply(first, second);
+            if (computed == null) {
+                return null;
+            }
+            R published = cache.putIfAbsent(first, second, null, computed);
+            return published != null ? published : computed;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent chained hash table keyed by up to three components, able only to add entries. Lookups hash and compare
+ * components directly, so a hit neither allocates a composite key nor goes through its equals; a node holding the
+ * components is created only on insert. Reads are lock free, writes are serialized by a lock. Nodes are immutable and
+ * published by a volatile write of the bucket head, the table grows by copying chains into a new state, readers that
+ * still walk the old one just miss and fall back to writing. Unused components are passed as nulls.
+ *
+ * @param <V> value type
+ * @since 1.0.1
+ */
+final class CompositeKeyTable<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Object lock = new Object();
+    private volatile State<V> state = new State<>(INITIAL_CAPACITY);
+    /**
+     * Number of entries, guarded by lock
+     */
+    private int size;
+
+    /**
+     * @return value or null if key is absent
+     */
+    V get(Object first, Object second, Object third) {
+        int hash = hash(first, second, third);
+        AtomicReferenceArray<Node<V>> buckets = state.buckets;
+        for (Node<V> node = buckets.get(hash & (buckets.length() - 1)); node != null; node = node.next) {
+            if (node.matches(hash, first, second, third)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return value already associated with the key or null if provided one was added
+     */
+    V putIfAbsent(Object first, Object second, Object third, V value) {
+        int hash = hash(first, second, third);
+        synchronized (lock) {
+            State<V> current = state;
+            int bucket = hash & (current.buckets.length() - 1);
+            Node<V> head = current.buckets.get(bucket);
+            for (Node<V> node = head; node != null; node = node.next) {
+                if (node.matches(hash, first, second, third)) {
+                    return node.value;
+                }
+            }
+            current.buckets.set(bucket, new Node<>(hash, first, second, third, value, head));
+            if (++size > current.buckets.length() * 3 / 4) {
+                state = current.grow();
+            }
+            return null;
+        }
+    }
+
+    private static int hash(Object first, Object second, Object third) {
+        int h = (31 * Objects.hashCode(first) + Objects.hashCode(second)) * 31 + Objects.hashCode(third);
+        return PrimitiveTables.hash(h);
+    }
+
+    private static final class Node<V> {
+        private final int hash;
+        private final Object first;
+        private final Object second;
+        private final Object third;
+        private final V value;
+        private final Node<V> next;
+
+        Node(int hash, Object first, Object second, Object third, V value, Node<V> next) {
+            this.hash = hash;
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            this.value = value;
+            this.next = next;
+        }
+
+        boolean matches(int hash, Object first, Object second, Object third) {
+            return this.hash == hash && Objects.equals(this.first, first) && Objects.equals(this.second, second)
+                    && Objects.equals(this.third, third);
+        }
+    }
+
+    private static final class State<V> {
+        private final AtomicReferenceArray<Node<V>> buckets;
+
+        State(int capacity) {
+            this.buckets = new AtomicReferenceArray<>(capacity);
+        }
+
+        State<V> grow() {
+            State<V> grown = new State<>(buckets.length() * 2);
+            int mask = grown.buckets.length() - 1;
+            for (int i = 0; i < buckets.length(); i++) {
+                for (Node<V> node = buckets.get(i); node != null; node = node.next) {
+                    int bucket = node.hash & mask;
+                    grown.buckets.set(bucket, new Node<>(node.hash, node.first, node.second, node.third, node.value,
+                            grown.buckets.get(bucket)));
+                }
+            }
+            return grown;
+        }
+    }
+}
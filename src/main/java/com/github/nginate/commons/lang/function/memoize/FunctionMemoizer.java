@@ -9,10 +9,22 @@
  */
 package com.github.nginate.commons.lang.function.memoize;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.google.common.collect.MapMaker;
+import lombok.NonNull;
+
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 /**
  * Intermediate operation for any functional flow to cache function results. As example let's assume you have a function
  * that is downloading some file from remote instance, reads first 666 lines and converts them to some dto. Using this
@@ -22,11 +34,81 @@ import java.util.function.Function;
  * @param <U> result type
  * @since 1.0
  */
-public class FunctionMemoizer<T, U> {
+public class FunctionMemoizer<T, U> implements Memoized {
+    /**
+     * Local cache for functions' results, null if each function gets its own cache built from spec
+     */
+    private final Map<T, U> cache;
+    /**
+     * Cache limits and expiration, null if cache is unbounded
+     */
+    private final MemoizeSpec<? super T, ? super U> spec;
+    /**
+     * Caches of memoized functions if they are built from spec, held weakly to be dropped with their functions
+     */
+    private final Set<LoadingCache<T, U>> specCaches = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+    /**
+     * Stats of all memoized functions, null if not recorded
+     */
+    private final StatsRecorder stats;
     /**
-     * Local cache for functions' results
+     * Size of per-thread cache in front of the shared one, 0 if there is no per-thread cache
+     */
+    private final int threadLocalSlots;
+
+    /**
+     * Create memoizer with unbounded cache
+     */
+    public FunctionMemoizer() {
+        this.cache = new ConcurrentHashMap<>();
+        this.spec = null;
+        this.stats = null;
+        this.threadLocalSlots = 0;
+    }
+
+    /**
+     * Create memoizer with cache limited by provided spec, each memoized function gets its own cache. Bounded cache
+     * uses frequency-aware eviction (W-TinyLFU): new entries get into a small LRU window and then compete for the main
+     * space by their estimated frequency of use, so a burst of one-off inputs does not flush frequently used results.
+     *
+     * @param spec cache limits, expiration and stats settings
+     * @throws IllegalStateException if stats MXBean can't be registered
+     * @since 1.0.1
+     */
+    public FunctionMemoizer(@NonNull MemoizeSpec<? super T, ? super U> spec) {
+        boolean plain = !spec.isBounded() && !spec.isTimed();
+        this.cache = plain ? new ConcurrentHashMap<>() : null;
+        this.spec = plain ? null : spec;
+        this.threadLocalSlots = spec.getThreadLocalSlots();
+        this.stats = spec.isRecordingStats() ? new StatsRecorder(this::size) : null;
+        if (stats != null && spec.getMXBeanName() != null) {
+            stats.register(spec.getMXBeanName());
+        }
+    }
+
+    /**
+     * @return stats of all functions memoized by this memoizer. Only size is provided unless stats are recorded
+     * @see MemoizeSpec.Builder#recordStats()
+     * @since 1.0.1
+     */
+    @Override
+    public MemoizeStats stats() {
+        return stats != null ? stats.snapshot() : StatsRecorder.empty(size());
+    }
+
+    /**
+     * Unregister stats MXBean, so its name may be used again. Does nothing if MXBean was not registered
+     *
+     * @throws IllegalStateException if MXBean can't be unregistered
+     * @see MemoizeSpec.Builder#registerMXBean(String)
+     * @since 1.0.1
      */
-    private final Map<T, U> cache = new ConcurrentHashMap<>();
+    @Override
+    public void unregisterMXBean() {
+        if (stats != null) {
+            stats.unregister();
+        }
+    }
 
     /**
      * Try to get already preloaded results of provided function, or compute and save in cache.
@@ -35,7 +117,162 @@ public class FunctionMemoizer<T, U> {
      * @return compute result (from cache if present)
      * @see Map#computeIfAbsent(Object, Function)
      */
-    public Function<T, U> doMemoize(Function<T, U> function) {
-        return input -> cache.computeIfAbsent(input, function);
+    public MemoizedFunction<T, U> doMemoize(Function<T, U> function) {
+        Function<T, U> shared = memoizeShared(function);
+        return new Memoizing(threadLocalSlots > 0 ? new ThreadLocalCache<>(shared, threadLocalSlots, stats) : shared);
+    }
+
+    private Function<T, U> memoizeShared(Function<T, U> function) {
+        if (spec == null && stats == null) {
+            // plain read first, as computeIfAbsent may lock the bin even if the result is there
+            return input -> {
+                U cached = cache.get(input);
+                return cached != null ? cached : cache.computeIfAbsent(input, function);
+            };
+        }
+        if (spec == null) {
+            Function<T, U> load = input -> {
+                long started = System.nanoTime();
+                try {
+                    return function.apply(input);
+                } finally {
+                    stats.recordLoad(System.nanoTime() - started);
+                }
+            };
+            return input -> {
+                U cached = cache.get(input);
+                if (cached != null) {
+                    stats.recordHit();
+                    return cached;
+                }
+                stats.recordMiss();
+                return cache.computeIfAbsent(input, load);
+            };
+        }
+        LoadingCache<T, U> loadingCache = buildCache(spec, stats).build(function::apply);
+        specCaches.add(loadingCache);
+        return loadingCache::get;
+    }
+
+    private long size() {
+        if (cache != null) {
+            return cache.size();
+        }
+        return specCaches.stream().mapToLong(LoadingCache::estimatedSize).sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, U> Caffeine<T, U> buildCache(MemoizeSpec<? super T, ? super U> spec, StatsRecorder stats) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .ticker(spec.getTicker()::getAsLong);
+        if (stats != null) {
+            builder.recordStats(() -> new CaffeineStats(stats));
+        }
+        if (spec.getRefreshAfterWriteNanos() != MemoizeSpec.UNSET) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWriteNanos(), NANOSECONDS)
+                    .executor(spec.getRefreshExecutor());
+        } else {
+            // eviction housekeeping is done by calling threads, not to load common pool where memoized functions
+            // often run
+            builder.executor(Runnable::run);
+        }
+        if (spec.getExpireAfterWriteNanos() != MemoizeSpec.UNSET) {
+            builder.expireAfterWrite(spec.getExpireAfterWriteNanos(), NANOSECONDS);
+        }
+        if (spec.getExpireAfterAccessNanos() != MemoizeSpec.UNSET) {
+            builder.expireAfterAccess(spec.getExpireAfterAccessNanos(), NANOSECONDS);
+        }
+        if (spec.getMaximumSize() != MemoizeSpec.UNSET) {
+            builder.maximumSize(spec.getMaximumSize());
+        } else if (spec.getMaximumWeight() != MemoizeSpec.UNSET) {
+            MemoizeSpec<T, U> weighted = (MemoizeSpec<T, U>) spec;
+            return builder.maximumWeight(weighted.getMaximumWeight())
+                    .weigher((T key, U value) -> weighted.getWeigher().applyAsInt(key, value));
+        }
+        return (Caffeine<T, U>) (Caffeine<?, ?>) builder;
+    }
+
+    /**
+     * Memoized function, keeping this memoizer reachable along with its stats
+     */
+    private class Memoizing implements MemoizedFunction<T, U> {
+        private final Function<T, U> memoized;
+
+        Memoizing(Function<T, U> memoized) {
+            this.memoized = memoized;
+        }
+
+        @Override
+        public U apply(T input) {
+            return memoized.apply(input);
+        }
+
+        @Override
+        public MemoizeStats stats() {
+            return FunctionMemoizer.this.stats();
+        }
+
+        @Override
+        public void unregisterMXBean() {
+            FunctionMemoizer.this.unregisterMXBean();
+        }
+    }
+
+    /**
+     * Adapter of cache stats callbacks to memoizer stats
+     */
+    private static class CaffeineStats implements StatsCounter {
+        private final StatsRecorder stats;
+        /**
+         * Weight of evicted entries of this cache, memoizer stats keep eviction count only
+         */
+        private final LongAdder evictionWeight = new LongAdder();
+
+        CaffeineStats(StatsRecorder stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordHits(int count) {
+            stats.recordHits(count);
+        }
+
+        @Override
+        public void recordMisses(int count) {
+            stats.recordMisses(count);
+        }
+
+        @Override
+        public void recordLoadSuccess(long loadTime) {
+            stats.recordLoad(loadTime);
+        }
+
+        @Override
+        public void recordLoadFailure(long loadTime) {
+            stats.recordLoad(loadTime);
+        }
+
+        @Override
+        public void recordEviction(int weight) {
+            stats.recordEviction();
+            evictionWeight.add(weight);
+        }
+
+        /**
+         * Still abstract in this version of the interface, though cache reports evictions via
+         * {@link CaffeineStats#recordEviction(int)}
+         */
+        @Override
+        @Deprecated
+        public void recordEviction() {
+            recordEviction(1);
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            MemoizeStats snapshot = stats.snapshot();
+            return new CacheStats(snapshot.getHitCount(), snapshot.getMissCount(), snapshot.getLoadCount(), 0,
+                    snapshot.getTotalLoadTimeNanos(), snapshot.getEvictionCount(), evictionWeight.sum());
+        }
     }
 }
@@ -0,0 +1,32 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.IntFunction;
+
+/**
+ * Cache of IntFunction results without boxing inputs, see {@link PrimitiveTables}.
+ *
+ * @param <U> result type
+ * @since 1.0.1
+ */
+public class IntFunctionMemoizer<U> {
+    private final LongFunctionMemoizer<U> memoizer = new LongFunctionMemoizer<>();
+
+    /**
+     * Try to get already preloaded results of provided function, or compute and save in cache.
+     *
+     * @param function function to compute something from input
+     * @return memoized function
+     */
+    public IntFunction<U> doMemoize(IntFunction<U> function) {
+        return memoizer.doMemoize(input -> function.apply((int) input))::apply;
+    }
+}
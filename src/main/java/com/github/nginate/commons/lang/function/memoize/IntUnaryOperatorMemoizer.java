@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Cache of IntUnaryOperator results without boxing, see {@link PrimitiveTables}.
+ *
+ * @since 1.0.1
+ */
+public class IntUnaryOperatorMemoizer {
+    private final LongToIntFunctionMemoizer memoizer = new LongToIntFunctionMemoizer();
+
+    /**
+     * Try to get already preloaded results of provided function, or compute and save in cache.
+     *
+     * @param function function to compute something from input
+     * @return memoized function
+     */
+    public IntUnaryOperator doMemoize(IntUnaryOperator function) {
+        return memoizer.doMemoize(input -> function.applyAsInt((int) input))::applyAsInt;
+    }
+}
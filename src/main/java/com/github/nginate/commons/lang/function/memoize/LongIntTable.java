@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Primitive table of long keys to int values. Slots are published by a volatile write of the filled flag after the key
+ * and value, so a reader that sees the flag sees both of them.
+ *
+ * @see PrimitiveTables
+ * @since 1.0.1
+ */
+final class LongIntTable {
+    /**
+     * Result of lookups for absent keys, out of int range
+     */
+    static final long ABSENT = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Object lock = new Object();
+    private volatile State state = new State(INITIAL_CAPACITY);
+    /**
+     * Number of entries, guarded by lock
+     */
+    private int size;
+
+    /**
+     * @param key key to look for
+     * @return value or {@link LongIntTable#ABSENT} if key is absent
+     */
+    long get(long key) {
+        State current = state;
+        int mask = current.keys.length - 1;
+        for (int slot = PrimitiveTables.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (current.filled.get(slot) == 0) {
+                return ABSENT;
+            }
+            if (current.keys[slot] == key) {
+                return current.values[slot];
+            }
+        }
+    }
+
+    /**
+     * @param key      key to look for
+     * @param function function to compute absent value, called outside of table lock
+     * @return present or computed value
+     */
+    int computeIfAbsent(long key, LongToIntFunction function) {
+        long cached = get(key);
+        if (cached != ABSENT) {
+            return (int) cached;
+        }
+        int computed = function.applyAsInt(key);
+        long published = putIfAbsent(key, computed);
+        return published != ABSENT ? (int) published : computed;
+    }
+
+    /**
+     * @param key   key to add
+     * @param value value to add
+     * @return value already associated with the key or {@link LongIntTable#ABSENT} if provided one was added
+     */
+    long putIfAbsent(long key, int value) {
+        synchronized (lock) {
+            State current = state;
+            int mask = current.keys.length - 1;
+            int slot = PrimitiveTables.hash(key) & mask;
+            for (; current.filled.get(slot) != 0; slot = (slot + 1) & mask) {
+                if (current.keys[slot] == key) {
+                    return current.values[slot];
+                }
+            }
+            current.insert(slot, key, value);
+            if (++size > current.keys.length / 2) {
+                state = current.grow();
+            }
+            return ABSENT;
+        }
+    }
+
+    private static final class State {
+        private final long[] keys;
+        private final int[] values;
+        private final AtomicIntegerArray filled;
+
+        State(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.filled = new AtomicIntegerArray(capacity);
+        }
+
+        void insert(int slot, long key, int value) {
+            keys[slot] = key;
+            values[slot] = value;
+            filled.set(slot, 1);
+        }
+
+        State grow() {
+            State grown = new State(keys.length * 2);
+            int mask = grown.keys.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (filled.get(i) != 0) {
+                    int slot = PrimitiveTables.hash(keys[i]) & mask;
+                    while (grown.filled.get(slot) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown.insert(slot, keys[i], values[i]);
+                }
+            }
+            return grown;
+        }
+    }
+}
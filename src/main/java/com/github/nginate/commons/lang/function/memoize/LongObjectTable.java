@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * Primitive table of long keys to non-null values. Slots are published by a volatile write of the value after the
+ * key, so a reader that sees the value sees its key as well.
+ *
+ * @param <V> value type
+ * @see PrimitiveTables
+ * @since 1.0.1
+ */
+final class LongObjectTable<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Object lock = new Object();
+    private volatile State<V> state = new State<>(INITIAL_CAPACITY);
+    /**
+     * Number of entries, guarded by lock
+     */
+    private int size;
+
+    /**
+     * @param key key to look for
+     * @return value or null if key is absent
+     */
+    V get(long key) {
+        State<V> current = state;
+        int mask = current.keys.length - 1;
+        for (int slot = PrimitiveTables.hash(key) & mask; ; slot = (slot + 1) & mask) {
+            V value = current.values.get(slot);
+            if (value == null || current.keys[slot] == key) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @param key      key to look for
+     * @param function function to compute absent value, called outside of table lock
+     * @return present or computed value, null if function returned null
+     */
+    V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V computed = function.apply(key);
+        if (computed == null) {
+            return null;
+        }
+        V published = putIfAbsent(key, computed);
+        return published != null ? published : computed;
+    }
+
+    /**
+     * @param key   key to add
+     * @param value value to add
+     * @return value already associated with the key or null if provided one was added
+     */
+    V putIfAbsent(long key, V value) {
+        synchronized (lock) {
+            State<V> current = state;
+            int mask = current.keys.length - 1;
+            int slot = PrimitiveTables.hash(key) & mask;
+            for (V existing; (existing = current.values.get(slot)) != null; slot = (slot + 1) & mask) {
+                if (current.keys[slot] == key) {
+                    return existing;
+                }
+            }
+            current.insert(slot, key, value);
+            if (++size > current.keys.length / 2) {
+                state = current.grow();
+            }
+            return null;
+        }
+    }
+
+    private static final class State<V> {
+        private final long[] keys;
+        private final AtomicReferenceArray<V> values;
+
+        State(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+        }
+
+        void insert(int slot, long key, V value) {
+            keys[slot] = key;
+            values.set(slot, value);
+        }
+
+        State<V> grow() {
+            State<V> grown = new State<>(keys.length * 2);
+            int mask = grown.keys.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                V value = values.get(i);
+                if (value != null) {
+                    int slot = PrimitiveTables.hash(keys[i]) & mask;
+                    while (grown.values.get(slot) != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown.insert(slot, keys[i], value);
+                }
+            }
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Limits of memoized function cache. By default cache is unbounded and its results never expire; bounded caches evict
+ * entries by frequency and recency of use, so rarely used entries are dropped first even if they were used recently
+ * once.
+ *
+ * <pre>{@code
+ *     // at most 10k entries
+ *     MemoizeSpec.builder().maximumSize(10_000).build();
+ *     // at most 64Mb of values
+ *     MemoizeSpec.builder().maximumWeight(64 << 20, (String key, byte[] value) -> value.length).build();
+ *     // token is reloaded in background each 5 minutes and never served if older than an hour
+ *     MemoizeSpec.builder().refreshAfterWrite(Duration.ofMinutes(5)).expireAfterWrite(Duration.ofHours(1)).build();
+ * }</pre>
+ *
+ * @param <K> input type
+ * @param <V> result type
+ * @since 1.0.1
+ */
+public final class MemoizeSpec<K, V> {
+    static final long UNSET = -1;
+
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier ticker;
+    private final boolean recordingStats;
+    private final ObjectName mxBeanName;
+    private final int threadLocalSlots;
+
+    private MemoizeSpec(Builder<K, V> builder) {
+        this.maximumSize = builder.maximumSize;
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+        this.refreshExecutor = builder.refreshExecutor;
+        this.ticker = builder.ticker;
+        this.recordingStats = builder.recordingStats;
+        this.mxBeanName = builder.mxBeanName;
+        this.threadLocalSlots = builder.threadLocalSlots;
+    }
+
+    /**
+     * @return new builder of unbounded spec
+     */
+    public static Builder<Object, Object> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return max entries count or {@link MemoizeSpec#UNSET}
+     */
+    long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return max total weight of entries or {@link MemoizeSpec#UNSET}
+     */
+    long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @return entry weigher, null if weight is not limited
+     */
+    ToIntBiFunction<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * @return max nanos since the value was computed till it expires or {@link MemoizeSpec#UNSET}
+     */
+    long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    /**
+     * @return max nanos since the value was last read till it expires or {@link MemoizeSpec#UNSET}
+     */
+    long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    /**
+     * @return nanos since the value was computed till it is reloaded in background or {@link MemoizeSpec#UNSET}
+     */
+    long getRefreshAfterWriteNanos() {
+        return refreshAfterWriteNanos;
+    }
+
+    /**
+     * @return executor for background reloads
+     */
+    Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * @return time source in nanos
+     */
+    LongSupplier getTicker() {
+        return ticker;
+    }
+
+    /**
+     * @return true if memoizer should record stats
+     */
+    boolean isRecordingStats() {
+        return recordingStats;
+    }
+
+    /**
+     * @return name to register stats MXBean with, null if it should not be registered
+     */
+    ObjectName getMXBeanName() {
+        return mxBeanName;
+    }
+
+    /**
+     * @return number of per-thread cache slots, 0 if there is no per-thread cache
+     */
+    int getThreadLocalSlots() {
+        return threadLocalSlots;
+    }
+
+    /**
+     * @return true if cache size should be limited somehow
+     */
+    boolean isBounded() {
+        return maximumSize != UNSET || maximumWeight != UNSET;
+    }
+
+    /**
+     * @return true if cached values should expire or be refreshed
+     */
+    boolean isTimed() {
+        return expireAfterWriteNanos != UNSET || expireAfterAccessNanos != UNSET || refreshAfterWriteNanos != UNSET;
+    }
+
+    public static final class Builder<K, V> {
+        private long maximumSize = UNSET;
+        private long maximumWeight = UNSET;
+        private ToIntBiFunction<? super K, ? super V> weigher;
+        private long expireAfterWriteNanos = UNSET;
+        private long expireAfterAccessNanos = UNSET;
+        private long refreshAfterWriteNanos = UNSET;
+        private Executor refreshExecutor = ForkJoinPool.commonPool();
+        private LongSupplier ticker = System::nanoTime;
+        private boolean recordingStats;
+        private ObjectName mxBeanName;
+        private int threadLocalSlots;
+
+        private Builder() {
+        }
+
+        /**
+         * Limit number of cached results
+         *
+         * @param maximumSize max entries count
+         * @return this builder
+         * @throws IllegalArgumentException if size is negative
+         * @throws IllegalStateException    if size or weight is already limited
+         */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            Preconditions.checkArgument(maximumSize >= 0, "maximum size must not be negative");
+            checkNotBounded();
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Limit total weight of cached results, e.g. their approximate memory footprint
+         *
+         * @param maximumWeight max total weight
+         * @param weigher       weight of a single entry, should not be negative
+         * @param <K1>          input type
+         * @param <V1>          result type
+         * @return this builder
+         * @throws IllegalArgumentException if weight is negative
+         * @throws IllegalStateException    if size or weight is already limited
+         */
+        @SuppressWarnings("unchecked")
+        public <K1 extends K, V1 extends V> Builder<K1, V1> maximumWeight(
+                long maximumWeight, @NonNull ToIntBiFunction<? super K1, ? super V1> weigher) {
+            Preconditions.checkArgument(maximumWeight >= 0, "maximum weight must not be negative");
+            checkNotBounded();
+            Builder<K1, V1> self = (Builder<K1, V1>) this;
+            self.maximumWeight = maximumWeight;
+            self.weigher = weigher;
+            return self;
+        }
+
+        /**
+         * Drop cached result when provided time passes since it was computed
+         *
+         * @param duration time to keep results
+         * @return this builder
+         * @throws IllegalArgumentException if duration is not positive
+         */
+        public Builder<K, V> expireAfterWrite(@NonNull Duration duration) {
+            this.expireAfterWriteNanos = positiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Drop cached result when provided time passes since it was last read or computed
+         *
+         * @param duration time to keep unused results
+         * @return this builder
+         * @throws IllegalArgumentException if duration is not positive
+         */
+        public Builder<K, V> expireAfterAccess(@NonNull Duration duration) {
+            this.expireAfterAccessNanos = positiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Reload cached result in background when it is read after provided time passes since it was computed. Readers
+         * keep getting current result while a single reload runs; if reload fails, current result stays cached.
+         *
+         * @param duration time after which results are reloaded
+         * @return this builder
+         * @throws IllegalArgumentException if duration is not positive
+         */
+        public Builder<K, V> refreshAfterWrite(@NonNull Duration duration) {
+            this.refreshAfterWriteNanos = positiveNanos(duration);
+            return this;
+        }
+
+        /**
+         * Set executor to run background reloads on, common fork join pool by default
+         *
+         * @param executor reload executor
+         * @return this builder
+         */
+        public Builder<K, V> refreshExecutor(@NonNull Executor executor) {
+            this.refreshExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Set time source for expiration and refresh, {@link System#nanoTime()} by default. Mostly useful for tests
+         *
+         * @param ticker nano time source
+         * @return this builder
+         */
+        public Builder<K, V> ticker(@NonNull LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Record hits, misses, loads and evictions of the cache. Recorded stats are available from memoizer or via
+         * JMX if {@link Builder#registerMXBean(String)} is used as well
+         *
+         * @return this builder
+         */
+        public Builder<K, V> recordStats() {
+            this.recordingStats = true;
+            return this;
+        }
+
+        /**
+         * Record stats and register them in platform MBean server as {@link MemoizeStatsMXBean}. MXBean stays
+         * registered till {@link Memoized#unregisterMXBean()} is called or memoizer is garbage collected along with its
+         * functions, so it is meant for long living memoizers
+         *
+         * @param objectName MXBean name, e.g. "com.example:type=Memoizer,name=profiles"
+         * @return this builder
+         * @throws IllegalArgumentException if name is not a valid object name
+         */
+        public Builder<K, V> registerMXBean(@NonNull String objectName) {
+            try {
+                this.mxBeanName = new ObjectName(objectName);
+            } catch (MalformedObjectNameException e) {
+                throw new IllegalArgumentException("Invalid MXBean name " + objectName, e);
+            }
+            this.recordingStats = true;
+            return this;
+        }
+
+        /**
+         * Put a small direct-mapped per-thread cache in front of the shared one, so hot inputs are served without
+         * touching memory shared with other threads. Each slot keeps a single result, an input that maps to an occupied
+         * slot replaces its result. Only suitable for functions whose results never go stale, so it can't be combined
+         * with expiration or refresh. Evicted shared results may still be served from per-thread caches
+         *
+         * @param slots number of per-thread slots, rounded up to power of two
+         * @return this builder
+         * @throws IllegalArgumentException if slots count is not positive or too large
+         */
+        public Builder<K, V> threadLocalCache(int slots) {
+            Preconditions.checkArgument(slots > 0 && slots <= 1 << 16, "slots count should be in [1, 65536]");
+            this.threadLocalSlots = roundUp(slots);
+            return this;
+        }
+
+        /**
+         * @return new spec
+         * @throws IllegalStateException if per-thread cache is combined with expiration or refresh
+         */
+        public MemoizeSpec<K, V> build() {
+            Preconditions.checkState(threadLocalSlots == 0 || (expireAfterWriteNanos == UNSET
+                            && expireAfterAccessNanos == UNSET && refreshAfterWriteNanos == UNSET),
+                    "per-thread cache can't be used with expiration or refresh");
+            return new MemoizeSpec<>(this);
+        }
+
+        private static int roundUp(int slots) {
+            int highest = Integer.highestOneBit(slots);
+            return highest == slots ? slots : highest << 1;
+        }
+
+        private static long positiveNanos(Duration duration) {
+            Preconditions.checkArgument(!duration.isNegative() && !duration.isZero(), "duration should be positive");
+            return duration.toNanos();
+        }
+
+        private void checkNotBounded() {
+            Preconditions.checkState(maximumSize == UNSET && maximumWeight == UNSET,
+                    "cache is already bounded by size or weight");
+        }
+    }
+}
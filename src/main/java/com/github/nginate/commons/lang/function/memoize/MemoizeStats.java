@@ -0,0 +1,65 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import lombok.Value;
+
+/**
+ * Snapshot of memoizer statistics. Counters are zero unless stats recording is enabled with
+ * {@link MemoizeSpec.Builder#recordStats()}.
+ *
+ * @since 1.0.1
+ */
+@Value
+public class MemoizeStats {
+    /**
+     * Number of calls that got cached result
+     */
+    long hitCount;
+    /**
+     * Number of calls that had no cached result
+     */
+    long missCount;
+    /**
+     * Number of original function calls
+     */
+    long loadCount;
+    /**
+     * Total time spent in original function calls
+     */
+    long totalLoadTimeNanos;
+    /**
+     * The longest original function call
+     */
+    long maxLoadTimeNanos;
+    /**
+     * Current number of cached results, may be approximate for bounded caches
+     */
+    long size;
+    /**
+     * Number of results dropped by size limits or expiration
+     */
+    long evictionCount;
+
+    /**
+     * @return ratio of calls that got cached result, 1 if there were no calls yet
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * @return average time of original function call, 0 if it was not called yet
+     */
+    public double averageLoadPenaltyNanos() {
+        return loadCount == 0 ? 0 : (double) totalLoadTimeNanos / loadCount;
+    }
+}
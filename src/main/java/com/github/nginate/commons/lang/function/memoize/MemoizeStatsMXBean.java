@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+/**
+ * Management interface of memoizer statistics, registered in platform MBean server if spec requests it with
+ * {@link MemoizeSpec.Builder#registerMXBean(String)}.
+ *
+ * @see MemoizeStats
+ * @since 1.0.1
+ */
+public interface MemoizeStatsMXBean {
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadCount();
+
+    long getTotalLoadTimeNanos();
+
+    long getMaxLoadTimeNanos();
+
+    double getAverageLoadPenaltyNanos();
+
+    long getSize();
+
+    long getEvictionCount();
+}
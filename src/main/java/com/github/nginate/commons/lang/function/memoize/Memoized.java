@@ -0,0 +1,32 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+/**
+ * Memoized function or supplier, giving access to stats of the memoizer it was created by.
+ *
+ * @see MemoizeSpec.Builder#recordStats()
+ * @since 1.0.1
+ */
+public interface Memoized {
+    /**
+     * @return stats of the memoizer. Only size is provided unless stats are recorded
+     */
+    MemoizeStats stats();
+
+    /**
+     * Unregister stats MXBean of the memoizer, so its name may be used again. Does nothing if MXBean was not
+     * registered
+     *
+     * @throws IllegalStateException if MXBean can't be unregistered
+     * @see MemoizeSpec.Builder#registerMXBean(String)
+     */
+    void unregisterMXBean();
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.Function;
+
+/**
+ * Memoized function with access to its memoizer stats
+ *
+ * @param <T> input type
+ * @param <U> result type
+ * @see FunctionMemoizer#doMemoize(Function)
+ * @since 1.0.1
+ */
+public interface MemoizedFunction<T, U> extends Function<T, U>, Memoized {
+}
@@ -0,0 +1,22 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.Supplier;
+
+/**
+ * Memoized supplier with access to its memoizer stats
+ *
+ * @param <T> type of output
+ * @see SupplierMemoizer#doMemoize(Supplier)
+ * @since 1.0.1
+ */
+public interface MemoizedSupplier<T> extends Supplier<T>, Memoized {
+}
@@ -0,0 +1,548 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import com.github.nginate.commons.lang.function.unchecked.RuntimeIOException;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Function memoizer keeping results in a memory-mapped file, so they survive restarts. Serialized results are appended
+ * to the file and found by serialized input. Opening the file only maps it: the index of stored inputs is built on the
+ * first call by walking record headers, nothing is deserialized but results of calls hitting the file. A corrupted
+ * file is detected by that walk, so it fails the first call rather than opening. Invalidated entries are compacted
+ * away in background once they take more space than live ones.
+ * <p>
+ * The file holds results of one function. It is locked while memoizer is open, so other memoizers, in this or other
+ * processes, fail to open it instead of corrupting it. Data reaches the disk via OS page cache, it's forced to the
+ * disk on {@link #close()} and compaction. File size is limited by 2GB. Compaction replaces the file with an atomic
+ * move, which needs a file system supporting it and a platform allowing to replace an open file, so it fails on
+ * Windows.
+ *
+ * @param <T> input type
+ * @param <U> result type
+ * @since 1.0.1
+ */
+public class PersistentFunctionMemoizer<T, U> implements Closeable {
+    private static final int MAGIC = 0x4E4D454D;
+    private static final int VERSION = 1;
+    /**
+     * Header is magic, version and the end of written records
+     */
+    private static final int HEADER_SIZE = 16;
+    private static final int END_POSITION = 8;
+    /**
+     * Record is input length, result length, input and result bytes
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int TOMBSTONE = -1;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final long COMPACTION_THRESHOLD = 1024 * 1024;
+
+    private final Path file;
+    private final Serializer<T> inputSerializer;
+    private final Serializer<U> resultSerializer;
+    private final Object lock = new Object();
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    /**
+     * Current file channel, holding the file lock till it's closed. Guarded by lock
+     */
+    private FileChannel channel;
+    /**
+     * Size of overwritten and invalidated records, guarded by lock
+     */
+    private long deadBytes;
+    /**
+     * Current mapping and index, null if memoizer is closed
+     */
+    private volatile State state;
+
+    /**
+     * Open or create memoizer file
+     *
+     * @param file             file to store results in
+     * @param inputSerializer  serializer of inputs, should give equal bytes for equal inputs
+     * @param resultSerializer serializer of results
+     * @throws RuntimeIOException       if file can't be opened or mapped
+     * @throws IllegalArgumentException if file is not a memoizer file or has unsupported version
+     * @throws IllegalStateException    if file is already used by another memoizer
+     */
+    public PersistentFunctionMemoizer(@NonNull Path file, @NonNull Serializer<T> inputSerializer,
+                                      @NonNull Serializer<U> resultSerializer) {
+        this.file = file;
+        this.inputSerializer = inputSerializer;
+        this.resultSerializer = resultSerializer;
+        try {
+            channel = FileChannel.open(file, CREATE, READ, WRITE);
+        } catch (IOException e) {
+            throw new RuntimeIOException("Could not open " + file, e);
+        }
+        try {
+            lockFile(channel);
+            state = new State(mapExisting(), null);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Get result of provided function from the file, or compute and append it. Null results are not stored.
+     *
+     * @param function function to compute something from input
+     * @return compute result (from file if present)
+     * @throws IllegalStateException if memoizer is closed or the file is corrupted when function is called
+     */
+    public Function<T, U> doMemoize(Function<T, U> function) {
+        return input -> {
+            byte[] key = inputSerializer.serialize(input);
+            byte[] stored = lookup(ByteBuffer.wrap(key));
+            if (stored != null) {
+                return resultSerializer.deserialize(stored);
+            }
+            U result = function.apply(input);
+            if (result == null) {
+                return null;
+            }
+            byte[] concurrent = append(key, resultSerializer.serialize(result));
+            return concurrent != null ? resultSerializer.deserialize(concurrent) : result;
+        };
+    }
+
+    /**
+     * Drop stored result for provided input, so it's computed again on next call
+     *
+     * @param input function input
+     * @return true if there was a stored result
+     * @throws IllegalStateException if memoizer is closed
+     */
+    public boolean invalidate(T input) {
+        ByteBuffer key = ByteBuffer.wrap(inputSerializer.serialize(input));
+        synchronized (lock) {
+            State current = loaded();
+            Integer previous = current.index.get(key);
+            if (previous == null) {
+                return false;
+            }
+            write(current, key.array(), null);
+            current.index.remove(key);
+            deadBytes += recordSize(current.buffer, previous) + RECORD_HEADER_SIZE + key.capacity();
+            scheduleCompactionIfWasteful();
+            return true;
+        }
+    }
+
+    /**
+     * @return count of stored results
+     * @throws IllegalStateException if memoizer is closed
+     */
+    public int size() {
+        return loaded().index.size();
+    }
+
+    /**
+     * Rewrite the file with live records only, and force it to the disk. Calls are not blocked by compaction, appends
+     * are blocked only while records appended during the rewrite are copied and the file is replaced. Compaction is
+     * started in background automatically when more than half of the file is dead records.
+     *
+     * @throws RuntimeIOException    if compacted file can't be written or can't replace the file
+     * @throws IllegalStateException if memoizer is closed, or the file can't be locked after compaction
+     */
+    public void compact() {
+        Preconditions.checkState(compactIfOpen(), "Memoizer of %s is closed", file);
+    }
+
+    /**
+     * @return false if memoizer is closed
+     */
+    private boolean compactIfOpen() {
+        synchronized (compactionLock) {
+            State current;
+            int[] offsets;
+            int snapshotEnd;
+            synchronized (lock) {
+                if (state == null) {
+                    return false;
+                }
+                current = loaded();
+                // keep records in the order they were stored
+                offsets = current.index.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+                snapshotEnd = (int) current.buffer.getLong(END_POSITION);
+            }
+            Path compacted = null;
+            FileChannel target = null;
+            try {
+                compacted = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                        ".compact");
+                target = FileChannel.open(compacted, READ, WRITE);
+                long size = HEADER_SIZE;
+                for (int offset : offsets) {
+                    size += recordSize(current.buffer, offset);
+                }
+                MappedByteBuffer buffer = map(target, size);
+                writeHeader(buffer);
+                Map<ByteBuffer, Integer> index = new ConcurrentHashMap<>(offsets.length * 2);
+                int position = HEADER_SIZE;
+                for (int offset : offsets) {
+                    int recordSize = recordSize(current.buffer, offset);
+                    copy(current.buffer, offset, buffer, position, recordSize);
+                    index.put(slice(buffer, position + RECORD_HEADER_SIZE, buffer.getInt(position)), position);
+                    position += recordSize;
+                }
+                synchronized (lock) {
+                    if (state == null) {
+                        return true;
+                    }
+                    replaceFile(target, compacted, buffer, position, snapshotEnd, index);
+                    target = null;
+                }
+            } catch (IOException e) {
+                throw new RuntimeIOException("Could not compact " + file, e);
+            } finally {
+                if (target != null) {
+                    closeQuietly(target);
+                }
+                if (compacted != null) {
+                    deleteQuietly(compacted);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Copy records appended since the rewrite was started, move compacted file over the current one, then map and
+     * lock it again. Should be called under lock
+     */
+    private void replaceFile(FileChannel target, Path compacted, MappedByteBuffer buffer, int position,
+                             int snapshotEnd, Map<ByteBuffer, Integer> index) throws IOException {
+        State current = state;
+        int end = position + (int) current.buffer.getLong(END_POSITION) - snapshotEnd;
+        if (end > buffer.capacity()) {
+            buffer = map(target, end);
+        }
+        copy(current.buffer, snapshotEnd, buffer, position, end - position);
+        long dead = indexRecords(buffer, position, end, index);
+        buffer.putLong(END_POSITION, end);
+        buffer.force();
+        target.close();
+        Files.move(compacted, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        FileChannel replaced = null;
+        try {
+            replaced = FileChannel.open(file, READ, WRITE);
+            lockFile(replaced);
+            buffer = map(replaced, buffer.capacity());
+        } catch (IOException | RuntimeException e) {
+            // the file is replaced already, current mapping is not the file anymore
+            state = null;
+            closeQuietly(channel);
+            if (replaced != null) {
+                closeQuietly(replaced);
+            }
+            throw e;
+        }
+        // releases the lock of the replaced file
+        closeQuietly(channel);
+        channel = replaced;
+        state = new State(buffer, index);
+        deadBytes = dead;
+    }
+
+    /**
+     * Force stored results to the disk and close the file. Memoized functions can't be called after that
+     *
+     * @throws RuntimeIOException if file can't be closed
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            State current = state;
+            if (current == null) {
+                return;
+            }
+            state = null;
+            current.buffer.force();
+            try {
+                // releases the file lock as well
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeIOException("Could not close " + file, e);
+            }
+        }
+    }
+
+    private byte[] lookup(ByteBuffer key) {
+        while (true) {
+            State current = loaded();
+            Integer offset = current.index.get(key);
+            if (offset == null) {
+                return null;
+            }
+            // record may be appended after the mapping was grown, or the file compacted since we've read the state
+            State latest = state;
+            if (latest != null && latest.index == current.index) {
+                return readResult(latest.buffer, offset);
+            }
+        }
+    }
+
+    /**
+     * @return result bytes stored concurrently for the same input, or null if provided result was appended
+     */
+    private byte[] append(byte[] key, byte[] result) {
+        synchronized (lock) {
+            State current = loaded();
+            Integer existing = current.index.get(ByteBuffer.wrap(key));
+            if (existing != null) {
+                return readResult(current.buffer, existing);
+            }
+            int offset = write(current, key, result);
+            State written = state;
+            written.index.put(slice(written.buffer, offset + RECORD_HEADER_SIZE, key.length), offset);
+            return null;
+        }
+    }
+
+    /**
+     * Append a record, growing the mapping if needed. Result is null for tombstones
+     *
+     * @return record offset
+     */
+    private int write(State current, byte[] key, byte[] result) {
+        int offset = (int) current.buffer.getLong(END_POSITION);
+        long end = (long) offset + RECORD_HEADER_SIZE + key.length + (result != null ? result.length : 0);
+        MappedByteBuffer buffer = ensureCapacity(current, end).buffer;
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        record.putInt(key.length).putInt(result != null ? result.length : TOMBSTONE).put(key);
+        if (result != null) {
+            record.put(result);
+        }
+        buffer.putLong(END_POSITION, end);
+        return offset;
+    }
+
+    private State ensureCapacity(State current, long required) {
+        if (required <= current.buffer.capacity()) {
+            return current;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Memoizer file " + file + " can't grow over 2GB");
+        }
+        long capacity = Math.min(Math.max(2L * current.buffer.capacity(), required), Integer.MAX_VALUE);
+        State grown = new State(map(channel, capacity), current.index);
+        state = grown;
+        return grown;
+    }
+
+    private State loaded() {
+        State current = state;
+        if (current != null && current.index != null) {
+            return current;
+        }
+        synchronized (lock) {
+            current = state;
+            Preconditions.checkState(current != null, "Memoizer of %s is closed", file);
+            if (current.index == null) {
+                current = new State(current.buffer, scan(current.buffer));
+                state = current;
+                scheduleCompactionIfWasteful();
+            }
+            return current;
+        }
+    }
+
+    private MappedByteBuffer mapExisting() {
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            throw new RuntimeIOException("Could not read " + file, e);
+        }
+        if (size == 0) {
+            MappedByteBuffer buffer = map(channel, INITIAL_CAPACITY);
+            writeHeader(buffer);
+            return buffer;
+        }
+        Preconditions.checkArgument(size >= HEADER_SIZE && size <= Integer.MAX_VALUE, "%s is not a memoizer file",
+                file);
+        MappedByteBuffer buffer = map(channel, size);
+        Preconditions.checkArgument(buffer.getInt(0) == MAGIC, "%s is not a memoizer file", file);
+        Preconditions.checkArgument(buffer.getInt(4) == VERSION, "%s has unsupported version %s", file,
+                buffer.getInt(4));
+        long end = buffer.getLong(END_POSITION);
+        Preconditions.checkArgument(end >= HEADER_SIZE && end <= size, "%s is corrupted", file);
+        return buffer;
+    }
+
+    private void lockFile(FileChannel target) {
+        try {
+            if (target.tryLock() == null) {
+                throw new IllegalStateException(file + " is used by another process");
+            }
+        } catch (OverlappingFileLockException e) {
+            throw new IllegalStateException(file + " is used by another memoizer", e);
+        } catch (IOException e) {
+            throw new RuntimeIOException("Could not lock " + file, e);
+        }
+    }
+
+    /**
+     * Index records by input bytes, the later record for the same input wins. Should be called under lock
+     */
+    private Map<ByteBuffer, Integer> scan(MappedByteBuffer buffer) {
+        Map<ByteBuffer, Integer> index = new ConcurrentHashMap<>();
+        deadBytes = indexRecords(buffer, HEADER_SIZE, (int) buffer.getLong(END_POSITION), index);
+        return index;
+    }
+
+    /**
+     * Walk record headers in provided range, checking they are consistent, and put them to the index
+     *
+     * @return size of records dropped by tombstones or overwritten in the range
+     */
+    private long indexRecords(ByteBuffer buffer, int from, int end, Map<ByteBuffer, Integer> index) {
+        long dead = 0;
+        int offset = from;
+        while (offset < end) {
+            Preconditions.checkState(offset + RECORD_HEADER_SIZE <= end, "%s is corrupted at %s", file, offset);
+            int keyLength = buffer.getInt(offset);
+            int resultLength = buffer.getInt(offset + 4);
+            long next = (long) offset + RECORD_HEADER_SIZE + keyLength + Math.max(resultLength, 0);
+            Preconditions.checkState(keyLength >= 0 && resultLength >= TOMBSTONE && next <= end,
+                    "%s is corrupted at %s", file, offset);
+            ByteBuffer key = slice(buffer, offset + RECORD_HEADER_SIZE, keyLength);
+            Integer previous = resultLength == TOMBSTONE ? index.remove(key) : index.put(key, offset);
+            if (previous != null) {
+                dead += recordSize(buffer, previous);
+            }
+            if (resultLength == TOMBSTONE) {
+                dead += next - offset;
+            }
+            offset = (int) next;
+        }
+        return dead;
+    }
+
+    /**
+     * Should be called under lock
+     */
+    private void scheduleCompactionIfWasteful() {
+        long written = state.buffer.getLong(END_POSITION) - HEADER_SIZE;
+        if (deadBytes < COMPACTION_THRESHOLD || deadBytes * 2 < written) {
+            return;
+        }
+        if (!compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        CompactorHolder.COMPACTOR.execute(() -> {
+            try {
+                compactIfOpen();
+            } finally {
+                compactionScheduled.set(false);
+            }
+        });
+    }
+
+    private static byte[] readResult(ByteBuffer buffer, int offset) {
+        int keyLength = buffer.getInt(offset);
+        byte[] result = new byte[buffer.getInt(offset + 4)];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE + keyLength);
+        record.get(result);
+        return result;
+    }
+
+    private static int recordSize(ByteBuffer buffer, int offset) {
+        return RECORD_HEADER_SIZE + buffer.getInt(offset) + Math.max(buffer.getInt(offset + 4), 0);
+    }
+
+    private static void copy(ByteBuffer source, int offset, ByteBuffer target, int position, int length) {
+        ByteBuffer copy = target.duplicate();
+        copy.position(position);
+        copy.put(slice(source, offset, length));
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset).limit(offset + length);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    private static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(END_POSITION, HEADER_SIZE);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) {
+        try {
+            return channel.map(READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeIOException("Could not map memoizer file", e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the mapping stays valid after channel is closed
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // temporary file is left if it can't be removed
+        }
+    }
+
+    /**
+     * Mapping and index of records in it, index is null till the first call. Grown mapping shares the index
+     */
+    private static class State {
+        private final MappedByteBuffer buffer;
+        private final Map<ByteBuffer, Integer> index;
+
+        State(MappedByteBuffer buffer, Map<ByteBuffer, Integer> index) {
+            this.buffer = buffer;
+            this.index = index;
+        }
+    }
+
+    private static class CompactorHolder {
+        private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("memoize-compactor-%d").build());
+    }
+}
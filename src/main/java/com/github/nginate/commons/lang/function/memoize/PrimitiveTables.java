@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Helpers shared by memoizer hash tables.
+ * <p>
+ * Memoizers of primitive functions keep results in concurrent open addressing tables of primitive keys, able only to
+ * add entries, so inputs are not boxed, cache hit does not allocate and each entry takes a fraction of a boxed map
+ * entry. Reads are lock free, writes are serialized by a lock, results are computed outside of it. Table grows by
+ * copying into a new state, readers that still probe the old one just miss and fall back to writing.
+ *
+ * @since 1.0.1
+ */
+@UtilityClass
+class PrimitiveTables {
+    /**
+     * Spread key bits, so sequential ids don't form long probe chains
+     *
+     * @param key primitive key
+     * @return well mixed hash
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Cache of results of a function that calls itself, e.g. dynamic programming solutions. Function gets its own memoized
+ * version as the first argument and should use it for recursive calls:
+ *
+ * <pre>{@code
+ *     Function<Integer, Long> fibonacci = new RecursiveFunctionMemoizer<Integer, Long>().doMemoize(
+ *             (self, n) -> n < 2 ? n : self.apply(n - 1) + self.apply(n - 2));
+ * }</pre>
+ *
+ * {@link FunctionMemoizer} can't be used for that: {@link ConcurrentHashMap#computeIfAbsent} must not update the map
+ * from inside of the mapping function. Here results are computed outside of the map and published afterwards, so
+ * recursion is safe. Concurrent callers may compute the same input twice, but all of them get the same result.
+ *
+ * @param <T> input type
+ * @param <U> result type
+ * @since 1.0.1
+ */
+public class RecursiveFunctionMemoizer<T, U> {
+    /**
+     * Local cache for functions' results
+     */
+    private final ConcurrentMap<T, U> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Memoize self-recursive function
+     *
+     * @param function function of its own memoized version and input
+     * @return memoized function
+     */
+    public Function<T, U> doMemoize(BiFunction<Function<T, U>, T, U> function) {
+        return new Function<T, U>() {
+            @Override
+            public U apply(T input) {
+                U cached = cache.get(input);
+                if (cached != null) {
+                    return cached;
+                }
+                U computed = function.apply(this, input);
+                if (computed == null) {
+                    return null;
+                }
+                U published = cache.putIfAbsent(input, computed);
+                return published != null ? published : computed;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import com.github.nginate.commons.lang.function.unchecked.RuntimeIOException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversion of memoized inputs and results to bytes and back for {@link PersistentFunctionMemoizer}. Inputs are
+ * looked up by their bytes, so serialization of inputs must be deterministic: equal inputs should give equal bytes.
+ *
+ * @param <T> serialized type
+ * @since 1.0.1
+ */
+public interface Serializer<T> {
+    /**
+     * @param value value to serialize
+     * @return value bytes
+     */
+    byte[] serialize(T value);
+
+    /**
+     * @param bytes bytes produced by {@link Serializer#serialize(Object)}
+     * @return restored value
+     */
+    T deserialize(byte[] bytes);
+
+    /**
+     * @return serializer of strings as UTF-8 bytes
+     */
+    static Serializer<String> utf8() {
+        return new Serializer<String>() {
+            @Override
+            public byte[] serialize(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String deserialize(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * @return serializer of longs as 8 big-endian bytes
+     */
+    static Serializer<Long> longs() {
+        return new Serializer<Long>() {
+            @Override
+            public byte[] serialize(Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            @Override
+            public Long deserialize(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getLong();
+            }
+        };
+    }
+
+    /**
+     * Serializer using java serialization. Suitable for results, but rarely for inputs: serialized form of equal
+     * objects is not guaranteed to be the same
+     *
+     * @param <T> serialized type
+     * @return serializer of serializable objects
+     */
+    static <T extends Serializable> Serializer<T> java() {
+        return new Serializer<T>() {
+            @Override
+            public byte[] serialize(T value) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                    output.writeObject(value);
+                } catch (IOException e) {
+                    throw new RuntimeIOException(e);
+                }
+                return bytes.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T deserialize(byte[] bytes) {
+                try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (T) input.readObject();
+                } catch (IOException e) {
+                    throw new RuntimeIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
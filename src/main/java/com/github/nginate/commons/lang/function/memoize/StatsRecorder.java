@@ -0,0 +1,240 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Memoizer statistics counters. Counters are striped, so concurrent callers recording stats don't contend on the same
+ * memory.
+ *
+ * @since 1.0.1
+ */
+final class StatsRecorder implements MemoizeStatsMXBean {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder evictions = new LongAdder();
+    private final LongSupplier size;
+    /**
+     * Name of registered MXBean, null if not registered
+     */
+    private volatile ObjectName registeredName;
+
+    /**
+     * @param size current number of cached results
+     */
+    StatsRecorder(LongSupplier size) {
+        this.size = size;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordHits(int count) {
+        hits.add(count);
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordMisses(int count) {
+        misses.add(count);
+    }
+
+    void recordLoad(long nanos) {
+        loads.increment();
+        totalLoadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * Register these stats in platform MBean server. Registered MXBean references stats weakly, so it does not keep
+     * memoizer and its cache alive; once they are collected, MXBean unregisters itself on the next read
+     *
+     * @param name object name
+     * @throws IllegalStateException if stats can't be registered, e.g. name is already taken
+     */
+    void register(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new WeakStats(this, name), MemoizeStatsMXBean.class, true), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register memoizer stats as " + name, e);
+        }
+        registeredName = name;
+    }
+
+    /**
+     * Unregister these stats from platform MBean server if they were registered
+     *
+     * @throws IllegalStateException if stats can't be unregistered
+     */
+    void unregister() {
+        ObjectName name = registeredName;
+        if (name != null) {
+            registeredName = null;
+            unregister(name);
+        }
+    }
+
+    MemoizeStats snapshot() {
+        return new MemoizeStats(hits.sum(), misses.sum(), loads.sum(), totalLoadNanos.sum(), maxLoadNanos.get(),
+                size.getAsLong(), evictions.sum());
+    }
+
+    private static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (InstanceNotFoundException ignored) {
+            // already unregistered
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister memoizer stats " + name, e);
+        }
+    }
+
+    /**
+     * @param size current number of cached results
+     * @return stats with zero counters
+     */
+    static MemoizeStats empty(long size) {
+        return new MemoizeStats(0, 0, 0, 0, 0, size, 0);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        return snapshot().hitRate();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getTotalLoadTimeNanos() {
+        return totalLoadNanos.sum();
+    }
+
+    @Override
+    public long getMaxLoadTimeNanos() {
+        return maxLoadNanos.get();
+    }
+
+    @Override
+    public double getAverageLoadPenaltyNanos() {
+        return snapshot().averageLoadPenaltyNanos();
+    }
+
+    @Override
+    public long getSize() {
+        return size.getAsLong();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * MXBean reading stats of a memoizer till it is collected
+     */
+    private static final class WeakStats implements MemoizeStatsMXBean {
+        private static final StatsRecorder COLLECTED = new StatsRecorder(() -> 0);
+
+        private final WeakReference<StatsRecorder> stats;
+        private final ObjectName name;
+
+        WeakStats(StatsRecorder stats, ObjectName name) {
+            this.stats = new WeakReference<>(stats);
+            this.name = name;
+        }
+
+        private StatsRecorder stats() {
+            StatsRecorder current = stats.get();
+            if (current == null) {
+                unregister(name);
+                return COLLECTED;
+            }
+            return current;
+        }
+
+        @Override
+        public long getHitCount() {
+            return stats().getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return stats().getMissCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return stats().getHitRate();
+        }
+
+        @Override
+        public long getLoadCount() {
+            return stats().getLoadCount();
+        }
+
+        @Override
+        public long getTotalLoadTimeNanos() {
+            return stats().getTotalLoadTimeNanos();
+        }
+
+        @Override
+        public long getMaxLoadTimeNanos() {
+            return stats().getMaxLoadTimeNanos();
+        }
+
+        @Override
+        public double getAverageLoadPenaltyNanos() {
+            return stats().getAverageLoadPenaltyNanos();
+        }
+
+        @Override
+        public long getSize() {
+            return stats().getSize();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return stats().getEvictionCount();
+        }
+    }
+}
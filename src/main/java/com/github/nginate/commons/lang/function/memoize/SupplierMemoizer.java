@@ -9,15 +9,20 @@
  */
 package com.github.nginate.commons.lang.function.memoize;
 
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
- * Supplier with local cache to save and reuse output of a 'heavy' supplier.
+ * Supplier with local cache to save and reuse output of a 'heavy' supplier. Cached value may expire or be refreshed
+ * in background if memoizer is created with a {@link MemoizeSpec}.
  *
  * @param <T> type of output
  * @since 1.0
  */
-public class SupplierMemoizer<T> {
+public class SupplierMemoizer<T> implements Memoized {
     /**
      * Cached value of original supplier
      */
@@ -26,6 +31,72 @@ public class SupplierMemoizer<T> {
      * Monitor object to synchronize cache initialization
      */
     private final Object monitor = new Object();
+    /**
+     * Expiration and refresh settings, null if value never expires
+     */
+    private final MemoizeSpec<?, ? super T> spec;
+    /**
+     * Cached value with its timestamps, used instead of plain value if spec is provided
+     */
+    private volatile Entry<T> entry;
+    /**
+     * Flag of running background reload, only one is allowed at a time
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    /**
+     * Stats of the value, null if not recorded
+     */
+    private final StatsRecorder stats;
+
+    /**
+     * Create memoizer that computes the value once
+     */
+    public SupplierMemoizer() {
+        this.spec = null;
+        this.stats = null;
+    }
+
+    /**
+     * Create memoizer with value expiration and refresh defined by spec. Expired value is computed again by the first
+     * reader, while the value due for refresh is reloaded in background and readers keep getting the current one.
+     *
+     * @param spec expiration, refresh and stats settings
+     * @throws IllegalArgumentException if spec limits cache size, as there is only one value
+     * @throws IllegalStateException    if stats MXBean can't be registered
+     * @since 1.0.1
+     */
+    public SupplierMemoizer(@NonNull MemoizeSpec<?, ? super T> spec) {
+        Preconditions.checkArgument(!spec.isBounded(), "single memoized value can't be limited by size or weight");
+        this.spec = spec.isTimed() || spec.isRecordingStats() ? spec : null;
+        this.stats = spec.isRecordingStats() ? new StatsRecorder(this::size) : null;
+        if (stats != null && spec.getMXBeanName() != null) {
+            stats.register(spec.getMXBeanName());
+        }
+    }
+
+    /**
+     * @return stats of the memoized value. Only size is provided unless stats are recorded
+     * @see MemoizeSpec.Builder#recordStats()
+     * @since 1.0.1
+     */
+    @Override
+    public MemoizeStats stats() {
+        return stats != null ? stats.snapshot() : StatsRecorder.empty(size());
+    }
+
+    /**
+     * Unregister stats MXBean, so its name may be used again. Does nothing if MXBean was not registered
+     *
+     * @throws IllegalStateException if MXBean can't be unregistered
+     * @see MemoizeSpec.Builder#registerMXBean(String)
+     * @since 1.0.1
+     */
+    @Override
+    public void unregisterMXBean() {
+        if (stats != null) {
+            stats.unregister();
+        }
+    }
 
     /**
      * Wrap your supplier to compute its output once and reuse same cached value among multiple accessors.
@@ -33,8 +104,11 @@ public class SupplierMemoizer<T> {
      * @param supplier original supplier to use for value computing
      * @return precomputed value from cache
      */
-    public Supplier<T> doMemoize(Supplier<T> supplier) {
-        return () -> {
+    public MemoizedSupplier<T> doMemoize(Supplier<T> supplier) {
+        if (spec != null) {
+            return new Memoizing(() -> getWithSpec(supplier));
+        }
+        return new Memoizing(() -> {
             if (value == null) {
                 synchronized (monitor) {
                     if (value == null) {
@@ -43,6 +117,125 @@ public class SupplierMemoizer<T> {
                 }
             }
             return value;
-        };
+        });
+    }
+
+    private T getWithSpec(Supplier<T> supplier) {
+        long now = spec.getTicker().getAsLong();
+        Entry<T> current = entry;
+        if (current == null || isExpired(current, now)) {
+            synchronized (monitor) {
+                current = entry;
+                if (current == null || isExpired(current, now)) {
+                    if (stats != null) {
+                        stats.recordMiss();
+                        if (current != null) {
+                            stats.recordEviction();
+                        }
+                    }
+                    T computed = load(supplier);
+                    if (computed == null) {
+                        return null;
+                    }
+                    current = new Entry<>(computed, spec.getTicker().getAsLong());
+                    entry = current;
+                    return computed;
+                }
+            }
+        }
+        if (stats != null) {
+            stats.recordHit();
+        }
+        if (isRefreshDue(current, now) && refreshing.compareAndSet(false, true)) {
+            refresh(supplier);
+        }
+        if (spec.getExpireAfterAccessNanos() != MemoizeSpec.UNSET) {
+            current.accessedAt = now;
+        }
+        return current.value;
+    }
+
+    private void refresh(Supplier<T> supplier) {
+        try {
+            spec.getRefreshExecutor().execute(() -> {
+                try {
+                    T reloaded = load(supplier);
+                    if (reloaded != null) {
+                        entry = new Entry<>(reloaded, spec.getTicker().getAsLong());
+                    }
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor rejected reload, current value is still good for now
+            refreshing.set(false);
+        }
+    }
+
+    private T load(Supplier<T> supplier) {
+        if (stats == null) {
+            return supplier.get();
+        }
+        long started = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            stats.recordLoad(System.nanoTime() - started);
+        }
+    }
+
+    private long size() {
+        return spec == null ? (value != null ? 1 : 0) : (entry != null ? 1 : 0);
+    }
+
+    private boolean isExpired(Entry<T> current, long now) {
+        return (spec.getExpireAfterWriteNanos() != MemoizeSpec.UNSET
+                && now - current.writtenAt >= spec.getExpireAfterWriteNanos())
+                || (spec.getExpireAfterAccessNanos() != MemoizeSpec.UNSET
+                && now - current.accessedAt >= spec.getExpireAfterAccessNanos());
+    }
+
+    private boolean isRefreshDue(Entry<T> current, long now) {
+        return spec.getRefreshAfterWriteNanos() != MemoizeSpec.UNSET
+                && now - current.writtenAt > spec.getRefreshAfterWriteNanos();
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long writtenAt;
+        private volatile long accessedAt;
+
+        Entry(T value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+            this.accessedAt = writtenAt;
+        }
+    }
+
+    /**
+     * Memoized supplier, keeping this memoizer reachable along with its stats
+     */
+    private class Memoizing implements MemoizedSupplier<T> {
+        private final Supplier<T> memoized;
+
+        Memoizing(Supplier<T> memoized) {
+            this.memoized = memoized;
+        }
+
+        @Override
+        public T get() {
+            return memoized.get();
+        }
+
+        @Override
+        public MemoizeStats stats() {
+            return SupplierMemoizer.this.stats();
+        }
+
+        @Override
+        public void unregisterMXBean() {
+            SupplierMemoizer.this.unregisterMXBean();
+        }
     }
 }
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import java.util.function.Function;
+
+/**
+ * Small direct-mapped per-thread cache in front of a shared memoized function. Threads that keep asking for a few hot
+ * inputs find them in their own array without touching shared memory at all. Each input maps to a single slot, newer
+ * result just replaces older one, so the per-thread cache needs no bookkeeping.
+ *
+ * @param <T> input type
+ * @param <U> result type
+ * @since 1.0.1
+ */
+final class ThreadLocalCache<T, U> implements Function<T, U> {
+    private final Function<T, U> shared;
+    private final int mask;
+    private final StatsRecorder stats;
+    /**
+     * Per-thread slots, inputs at even indexes followed by their results
+     */
+    private final ThreadLocal<Object[]> slots;
+
+    /**
+     * @param shared    memoized function to ask on per-thread miss
+     * @param slotCount number of per-thread slots, power of two
+     * @param stats     stats to record per-thread hits to, may be null
+     */
+    ThreadLocalCache(Function<T, U> shared, int slotCount, StatsRecorder stats) {
+        this.shared = shared;
+        this.mask = slotCount - 1;
+        this.stats = stats;
+        this.slots = ThreadLocal.withInitial(() -> new Object[slotCount * 2]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public U apply(T input) {
+        Object[] table = slots.get();
+        int hash = input.hashCode();
+        int index = ((hash ^ (hash >>> 16)) & mask) << 1;
+        Object key = table[index];
+        if (key != null && (key == input || key.equals(input))) {
+            if (stats != null) {
+                stats.recordHit();
+            }
+            return (U) table[index + 1];
+        }
+        U result = shared.apply(input);
+        if (result != null) {
+            table[index] = input;
+            table[index + 1] = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.function.memoize;
+
+import com.github.nginate.commons.lang.function.TriFunction;
+
+/**
+ * Cache of TriFunction results keyed by all three arguments, without building a key object on cache hit.
+ *
+ * @param <T> first input type
+ * @param <U> second input type
+ * @param <V> third input type
+ * @param <R> result type
+ * @see BiFunctionMemoizer
+ * @since 1.0.1
+ */
+public class TriFunctionMemoizer<T, U, V, R> {
+    /**
+     * Local cache for functions' results
+     */
+    private final CompositeKeyTable<R> cache = new CompositeKeyTable<>();
+
+    /**
+     * Try to get already preloaded results of provided function, or compute and save in cache.
+     *
+     * @param function function to compute something from inputs
+     * @return memoized function
+     */
+    public TriFunction<T, U, V, R> doMemoize(TriFunction<T, U, V, R> function) {
+        return (first, second, third) -> {
+            R cached = cache.get(first, second, third);
+            if (cached != null) {
+                return cached;
+            }
+            R computed = function.apply(first, second, third);
+            if (computed == null) {
+                return null;
+            }
+            R published = cache.putIfAbsent(first, second, third, computed);
+            return published != null ? published : computed;
+        };
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import com.github.nginate.commons.lang.NStrings;
+import lombok.NonNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Deferred template rendering. Creation only saves references to template and args, nothing is parsed or rendered
+ * until the value is actually read with {@link LazyString#toString()} or any other char sequence method. Rendered value
+ * is computed once and cached.
+ *
+ * Meant to be passed to loggers, which call {@code toString()} only if message is going to be written:
+ * <pre>{@code
+ *     log.debug("{}", NStrings.lazy("request {} took {} ms", request, duration));
+ * }</pre>
+ *
+ * Args are rendered at first access, so they should not be mutated between creation and reading.
+ *
+ * @see NStrings#lazy(String, Object...)
+ * @see Template#lazy(Object...)
+ * @since 1.0.1
+ */
+public final class LazyString implements CharSequence, Supplier<String> {
+    /**
+     * Template source for templates that were not compiled yet
+     */
+    private final String source;
+    /**
+     * Compiled template, if any
+     */
+    private final Template template;
+    /**
+     * Args to render, dropped after rendering
+     */
+    private Object[] args;
+    /**
+     * Cached rendering result
+     */
+    private volatile String value;
+
+    LazyString(String source, Template template, Object[] args) {
+        this.source = source;
+        this.template = template;
+        this.args = args;
+    }
+
+    /**
+     * Create lazy string for template with simple ('{}') placeholders
+     *
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @return char sequence, rendering template on first access
+     */
+    public static LazyString of(@NonNull String template, Object... args) {
+        return new LazyString(template, null, args);
+    }
+
+    @Override
+    public String get() {
+        String result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = template != null ? template.render(args) : NStrings.format(source, args);
+                    value = result;
+                    args = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int length() {
+        return get().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return get().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return get().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.github.nginate.commons.lang.NStrings.format;
+
+/**
+ * Resolves dotted property paths over maps and beans. Bean accessors are looked up once per class and property name
+ * and cached as method handles, so repeated resolution costs a couple of map lookups and a direct call.
+ * <p>
+ * Handles reference their bean class, so they are kept in a {@link ClassValue} - in the bean class itself rather than
+ * in a map keyed by classes. Nothing outside the bean class refers to them, so classes of unloadable class loaders
+ * (web applications, plugins) are not pinned and accessors are dropped along with them.
+ *
+ * @since 1.0.1
+ */
+@UtilityClass
+class PropertyAccessors {
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> ACCESSORS =
+            new ClassValue<ConcurrentMap<String, MethodHandle>>() {
+                @Override
+                protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    /**
+     * Walk provided path starting from the root. Maps are navigated by keys, any other object - by its getter
+     * ('getName()' or 'isName()'), accessor method ('name()') or public field ('name') in that order.
+     *
+     * @param root source of values
+     * @param path property names
+     * @return resolved value or null if any value on the path is null
+     * @throws IllegalArgumentException if bean on the path has no such property or its accessor fails
+     */
+    static Object resolve(Object root, String[] path) {
+        Object current = root;
+        for (String property : path) {
+            if (current == null) {
+                return null;
+            }
+            if (current instanceof Map) {
+                current = ((Map<?, ?>) current).get(property);
+            } else {
+                current = invoke(accessor(current.getClass(), property), current, property);
+            }
+        }
+        return current;
+    }
+
+    private static MethodHandle accessor(Class<?> type, String property) {
+        ConcurrentMap<String, MethodHandle> accessors = ACCESSORS.get(type);
+        MethodHandle accessor = accessors.get(property);
+        if (accessor == null) {
+            accessor = lookup(type, property);
+            accessors.putIfAbsent(property, accessor);
+        }
+        return accessor;
+    }
+
+    private static Object invoke(MethodHandle accessor, Object bean, String property) {
+        try {
+            return (Object) accessor.invokeExact(bean);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(
+                    format("Could not read property '{}' of {}", property, bean.getClass().getName()), e);
+        }
+    }
+
+    private static MethodHandle lookup(Class<?> type, String property) {
+        if (property.isEmpty()) {
+            throw new IllegalArgumentException(format("Empty property name in {}", type.getName()));
+        }
+        String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        try {
+            Method method = findMethod(type, "get" + capitalized);
+            if (method == null) {
+                method = findMethod(type, "is" + capitalized);
+            }
+            if (method == null) {
+                method = findMethod(type, property);
+            }
+            if (method != null) {
+                return MethodHandles.lookup().unreflect(accessible(method)).asType(ACCESSOR_TYPE);
+            }
+            Field field = type.getField(property);
+            return MethodHandles.lookup().unreflectGetter(accessible(field)).asType(ACCESSOR_TYPE);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(format("No readable property '{}' in {}", property, type.getName()), e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name);
+            return method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers()) ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Public members of non-public classes (e.g. private nested beans) can't be called without this
+     */
+    private static <T extends AccessibleObject> T accessible(T member) {
+        try {
+            member.setAccessible(true);
+        } catch (RuntimeException ignored) {
+            // security manager or module system does not allow it, so public access is the best we can get
+        }
+        return member;
+    }
+}
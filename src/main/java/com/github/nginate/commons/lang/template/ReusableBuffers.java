@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+/**
+ * Per-thread render buffers. Buffers are handed out to one user at a time - if template args render other templates
+ * from their {@code toString()} while buffer is taken, nested call gets a fresh one-off instance.
+ *
+ * @since 1.0.1
+ */
+final class ReusableBuffers {
+    /**
+     * Builders grown above this capacity are dropped on release not to pin huge arrays to pooled threads
+     */
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+    private static final int INITIAL_CAPACITY = 256;
+    static final int CHUNK_SIZE = 1024;
+
+    private static final ThreadLocal<ReusableBuffers> LOCAL = ThreadLocal.withInitial(ReusableBuffers::new);
+
+    /**
+     * Builder to render templates into
+     */
+    StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+    /**
+     * Scratch array to copy builder contents to targets that accept only arrays
+     */
+    final char[] chunk = new char[CHUNK_SIZE];
+    /**
+     * Scratch array to encode chars before writing them to byte streams
+     */
+    final byte[] bytes = new byte[CHUNK_SIZE];
+    private boolean inUse;
+
+    private ReusableBuffers() {
+    }
+
+    /**
+     * @return buffers of current thread or new instance if those are already in use
+     */
+    static ReusableBuffers acquire() {
+        ReusableBuffers buffers = LOCAL.get();
+        if (buffers.inUse) {
+            return new ReusableBuffers();
+        }
+        buffers.inUse = true;
+        return buffers;
+    }
+
+    /**
+     * Reset and give buffers back to current thread
+     */
+    void release() {
+        if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+            builder = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            builder.setLength(0);
+        }
+        inUse = false;
+    }
+}
@@ -0,0 +1,558 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import com.github.nginate.commons.lang.function.unchecked.RuntimeIOException;
+import com.google.common.base.Preconditions;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Pre-parsed string template. Template is split once into literal segments and placeholder slots, so rendering is just
+ * a sequence of appends without scanning the source again. Instances are immutable and may be freely shared between
+ * threads.
+ *
+ * Template of N placeholders holds N + 1 literal segments (some of them may be empty), rendering looks like
+ * {@code literal[0] arg[0] literal[1] arg[1] ... literal[N]}.
+ *
+ * @see com.github.nginate.commons.lang.NStrings#compile(CharSequence)
+ * @see com.github.nginate.commons.lang.NStrings#compileNamed(CharSequence)
+ * @since 1.0.1
+ */
+public final class Template {
+    private static final Pattern PATH_SEPARATOR = Pattern.compile("\\.");
+
+    /**
+     * Original template source, kept only if template was compiled from a string not to copy other char sequences
+     */
+    private final String source;
+    /**
+     * Text between placeholders, always one element longer than {@link Template#names}
+     */
+    private final String[] literals;
+    /**
+     * Placeholder contents. Empty strings for simple ('{}') templates
+     */
+    private final String[] names;
+    /**
+     * Placeholder names split into property paths ('{a.b.c}'), used to render templates from maps and beans
+     */
+    private final String[][] paths;
+    /**
+     * Summary length of all literal segments, used to presize render buffers
+     */
+    private final int literalLength;
+    /**
+     * UTF-8 bytes of literal segments, encoded on first binary render
+     */
+    private volatile byte[][] encodedLiterals;
+
+    private Template(String source, String[] literals, String[] names) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.paths = new String[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            paths[i] = PATH_SEPARATOR.split(names[i], -1);
+        }
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse template with simple placeholders - '{' immediately followed by '}'. Template may be any char sequence,
+     * e.g. a {@link java.nio.CharBuffer} over a memory-mapped file, it is scanned in place.
+     *
+     * @param template string template with placeholders
+     * @return compiled template
+     */
+    public static Template compile(@NonNull CharSequence template) {
+        return parse(template, false);
+    }
+
+    /**
+     * Parse template with named placeholders - everything from '{' to the nearest '}' is a placeholder. Template may
+     * be any char sequence, it is scanned in place.
+     *
+     * @param template string template with placeholders
+     * @return compiled template
+     */
+    public static Template compileNamed(@NonNull CharSequence template) {
+        return parse(template, true);
+    }
+
+    /**
+     * Render template with simple placeholders straight to provided target, without compiling it. Template is scanned
+     * in place and literal text is appended from it directly, so it is never copied as a whole. Prefer compiled
+     * templates for anything rendered more than once.
+     *
+     * @param target   appendable to write rendered template to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws RuntimeIOException             if target fails to append
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public static <A extends Appendable> A renderOnce(@NonNull A target, @NonNull CharSequence template,
+                                                      Object... args) {
+        return renderOnce(target, template, false, args);
+    }
+
+    /**
+     * Same as {@link Template#renderOnce(Appendable, CharSequence, Object...)} for template with named placeholders
+     *
+     * @param target   appendable to write rendered template to
+     * @param template string template with placeholders
+     * @param args     args to inject in template
+     * @param <A>      target type
+     * @return same target
+     * @throws RuntimeIOException             if target fails to append
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public static <A extends Appendable> A renderNamedOnce(@NonNull A target, @NonNull CharSequence template,
+                                                           Object... args) {
+        return renderOnce(target, template, true, args);
+    }
+
+    /**
+     * Inject args into template. Args are consumed in the order placeholders occur, extra args are ignored.
+     *
+     * @param args args to inject in template
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public String render(Object... args) {
+        ReusableBuffers buffers = ReusableBuffers.acquire();
+        try {
+            return renderTo(buffers.builder, args).toString();
+        } finally {
+            buffers.release();
+        }
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)} for one arg, without creating args array
+     *
+     * @param arg0 first arg
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public String render(Object arg0) {
+        return renderFixed(1, arg0, null, null, null);
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)} for two args, without creating args array
+     *
+     * @param arg0 first arg
+     * @param arg1 second arg
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public String render(Object arg0, Object arg1) {
+        return renderFixed(2, arg0, arg1, null, null);
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)} for three args, without creating args array
+     *
+     * @param arg0 first arg
+     * @param arg1 second arg
+     * @param arg2 third arg
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public String render(Object arg0, Object arg1, Object arg2) {
+        return renderFixed(3, arg0, arg1, arg2, null);
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)} for four args, without creating args array
+     *
+     * @param arg0 first arg
+     * @param arg1 second arg
+     * @param arg2 third arg
+     * @param arg3 fourth arg
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public String render(Object arg0, Object arg1, Object arg2, Object arg3) {
+        return renderFixed(4, arg0, arg1, arg2, arg3);
+    }
+
+    /**
+     * Start fluent rendering, that accepts primitive args without boxing
+     *
+     * @return single use renderer, reused by current thread once rendered
+     * @see TemplateRenderer
+     */
+    public TemplateRenderer renderer() {
+        return TemplateRenderer.acquire(this);
+    }
+
+    /**
+     * Defer rendering till the result is actually read. Nothing but the returned wrapper is created until then.
+     *
+     * @param args args to inject in template
+     * @return char sequence, rendering template on first access
+     * @see LazyString
+     */
+    public LazyString lazy(Object... args) {
+        return new LazyString(null, this, args);
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)}, but appends result to provided builder
+     *
+     * @param target builder to append rendered template to
+     * @param args   args to inject in template
+     * @return same builder
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public StringBuilder renderTo(@NonNull StringBuilder target, Object... args) {
+        target.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            target.append(args[i]);
+            target.append(literals[i + 1]);
+        }
+        return target;
+    }
+
+    /**
+     * Same as {@link Template#render(Object...)}, but appends result straight to provided target, arg by arg. No
+     * intermediate buffer or string is created, except string representation of args that are not char sequences.
+     *
+     * @param target appendable to write rendered template to
+     * @param args   args to inject in template
+     * @param <A>    target type
+     * @return same target
+     * @throws RuntimeIOException             if target fails to append
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public <A extends Appendable> A renderTo(@NonNull A target, Object... args) {
+        try {
+            target.append(literals[0]);
+            for (int i = 0; i < names.length; i++) {
+                target.append(toChars(args[i]));
+                target.append(literals[i + 1]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return target;
+    }
+
+    /**
+     * Same as {@link Template#renderTo(Appendable, Object...)}, but renders template into a builder, reused by current
+     * thread, and passes it to the target with a single call. Useful for targets that are expensive to call many
+     * times, e.g. synchronized or unbuffered writers.
+     *
+     * @param target appendable to write rendered template to
+     * @param args   args to inject in template
+     * @param <A>    target type
+     * @return same target
+     * @throws RuntimeIOException             if target fails to append
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public <A extends Appendable> A renderBufferedTo(@NonNull A target, Object... args) {
+        ReusableBuffers buffers = ReusableBuffers.acquire();
+        try {
+            StringBuilder builder = renderTo(buffers.builder, args);
+            if (target instanceof Writer) {
+                writeChunked(builder, buffers.chunk, (Writer) target);
+            } else {
+                target.append(builder);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            buffers.release();
+        }
+        return target;
+    }
+
+    /**
+     * Render template once per each row of args and write results one after another to provided writer. Rows are
+     * rendered into a single buffer, which is written out each time it reaches {@code batchSize} chars, so memory
+     * usage does not depend on the number of rows. Writer itself is neither flushed nor closed.
+     *
+     * @param rows      args for each rendering
+     * @param target    writer to write results to
+     * @param batchSize number of chars to collect before writing them out
+     * @return number of rendered rows
+     * @throws RuntimeIOException             if writer fails to write
+     * @throws ArrayIndexOutOfBoundsException if some row has less args than placeholders
+     * @throws IllegalArgumentException       if batch size is not positive
+     */
+    public long renderAll(@NonNull Iterator<Object[]> rows, @NonNull Writer target, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0, "batch size should be positive");
+
+        int chunkSize = Math.min(batchSize, ReusableBuffers.CHUNK_SIZE);
+        // buffer grows up to the batch size only if rows keep coming, huge batch sizes are not allocated upfront
+        StringBuilder buffer = new StringBuilder(chunkSize + estimateLength());
+        char[] chunk = new char[chunkSize];
+        long count = 0;
+        try {
+            while (rows.hasNext()) {
+                renderTo(buffer, rows.next());
+                count++;
+                if (buffer.length() >= batchSize) {
+                    writeChunked(buffer, chunk, target);
+                    buffer.setLength(0);
+                }
+            }
+            writeChunked(buffer, chunk, target);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Render template as UTF-8 bytes straight into provided buffer, starting at its current position. Literal segments
+     * are encoded once per template, args are encoded char by char, no intermediate strings or arrays are created for
+     * char sequence args.
+     *
+     * Rendering is all or nothing: if rendered template does not fit into remaining space, buffer position is restored
+     * and false is returned, so caller may flush the buffer and try again. Templates larger than the whole buffer never
+     * fit, use {@link Template#encodeTo(OutputStream, Object...)} for those.
+     *
+     * @param target buffer to write to
+     * @param args   args to inject in template
+     * @return true if template was written, false if there is not enough space in buffer
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public boolean encodeTo(@NonNull ByteBuffer target, Object... args) {
+        byte[][] encoded = encodedLiterals();
+        int start = target.position();
+        boolean written = put(encoded[0], target);
+        for (int i = 0; written && i < names.length; i++) {
+            written = Utf8.encode(toChars(args[i]), target) && put(encoded[i + 1], target);
+        }
+        if (!written) {
+            target.position(start);
+        }
+        return written;
+    }
+
+    /**
+     * Render template as UTF-8 bytes straight into provided stream. Literal segments are encoded once per template,
+     * args are encoded through a buffer, reused by current thread.
+     *
+     * @param target stream to write to
+     * @param args   args to inject in template
+     * @param <S>    stream type
+     * @return same stream
+     * @throws RuntimeIOException             if stream fails to write
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    public <S extends OutputStream> S encodeTo(@NonNull S target, Object... args) {
+        byte[][] encoded = encodedLiterals();
+        ReusableBuffers buffers = ReusableBuffers.acquire();
+        try {
+            target.write(encoded[0]);
+            for (int i = 0; i < names.length; i++) {
+                Utf8.encode(toChars(args[i]), target, buffers.bytes);
+                target.write(encoded[i + 1]);
+            }
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        } finally {
+            buffers.release();
+        }
+        return target;
+    }
+
+    /**
+     * Inject values into template by placeholder names. Name is a key in provided map, dotted names ('{a.b.c}') are
+     * resolved as paths: every nested map is navigated by key, every other object by its property.
+     *
+     * @param values values to inject in template
+     * @return plain string with injected values
+     * @throws IllegalArgumentException if some bean on placeholder path has no such property
+     * @see Template#renderBean(Object)
+     */
+    public String renderValues(@NonNull Map<String, ?> values) {
+        return renderProperties(values);
+    }
+
+    /**
+     * Inject bean properties into template by placeholder names. Property is read with its getter ('getName()' or
+     * 'isName()'), accessor method ('name()') or public field, dotted names ('{a.b.c}') are resolved as paths. Accessors
+     * are looked up once per class and property and reused afterwards.
+     *
+     * @param bean source of values
+     * @return plain string with injected values
+     * @throws IllegalArgumentException if some bean on placeholder path has no such property
+     */
+    public String renderBean(@NonNull Object bean) {
+        return renderProperties(bean);
+    }
+
+    /**
+     * @return original template string
+     */
+    public String getSource() {
+        if (source != null) {
+            return source;
+        }
+        StringBuilder target = new StringBuilder(literalLength + names.length * 2);
+        target.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            target.append('{').append(names[i]).append('}').append(literals[i + 1]);
+        }
+        return target.toString();
+    }
+
+    /**
+     * @return number of placeholders in template
+     */
+    public int getPlaceholderCount() {
+        return names.length;
+    }
+
+    /**
+     * @param index placeholder index
+     * @return text between braces of the placeholder, empty for simple templates
+     */
+    public String getPlaceholderName(int index) {
+        return names[index];
+    }
+
+    @Override
+    public String toString() {
+        return getSource();
+    }
+
+    private String renderProperties(Object root) {
+        StringBuilder target = new StringBuilder(estimateLength());
+        target.append(literals[0]);
+        for (int i = 0; i < paths.length; i++) {
+            target.append(PropertyAccessors.resolve(root, paths[i]));
+            target.append(literals[i + 1]);
+        }
+        return target.toString();
+    }
+
+    private static <A extends Appendable> A renderOnce(A target, CharSequence template, boolean named,
+                                                       Object[] args) {
+        try {
+            TemplateScanner.render(template, named, target, args);
+        } catch (IOException e) {
+            throw new RuntimeIOException(e);
+        }
+        return target;
+    }
+
+    String literal(int index) {
+        return literals[index];
+    }
+
+    private String renderFixed(int count, Object arg0, Object arg1, Object arg2, Object arg3) {
+        ReusableBuffers buffers = ReusableBuffers.acquire();
+        try {
+            StringBuilder target = buffers.builder;
+            target.append(literals[0]);
+            for (int i = 0; i < names.length; i++) {
+                if (i >= count) {
+                    throw new ArrayIndexOutOfBoundsException(i);
+                }
+                target.append(i == 0 ? arg0 : i == 1 ? arg1 : i == 2 ? arg2 : arg3);
+                target.append(literals[i + 1]);
+            }
+            return target.toString();
+        } finally {
+            buffers.release();
+        }
+    }
+
+    private byte[][] encodedLiterals() {
+        byte[][] encoded = encodedLiterals;
+        if (encoded == null) {
+            encoded = new byte[literals.length][];
+            for (int i = 0; i < literals.length; i++) {
+                encoded[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+            }
+            encodedLiterals = encoded;
+        }
+        return encoded;
+    }
+
+    private static boolean put(byte[] bytes, ByteBuffer target) {
+        if (target.remaining() < bytes.length) {
+            return false;
+        }
+        target.put(bytes);
+        return true;
+    }
+
+    static CharSequence toChars(Object arg) {
+        return arg instanceof CharSequence ? (CharSequence) arg : String.valueOf(arg);
+    }
+
+    /**
+     * Writer's append methods convert char sequences to strings first, so builder contents are copied to writer by
+     * chunks through reusable array instead
+     */
+    private static void writeChunked(StringBuilder builder, char[] chunk, Writer writer) throws IOException {
+        int length = builder.length();
+        for (int start = 0; start < length; start += chunk.length) {
+            int end = Math.min(length, start + chunk.length);
+            builder.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+        }
+    }
+
+    private int estimateLength() {
+        return literalLength + names.length * 16;
+    }
+
+    /**
+     * Split template into literal segments and placeholders. Template is scanned twice in place: first to count
+     * placeholders, then to cut literal segments and names.
+     *
+     * @param template string template with placeholders
+     * @param named    whether placeholders may contain names
+     * @return compiled template
+     */
+    private static Template parse(CharSequence template, boolean named) {
+        int placeholders = 0;
+        for (int open = TemplateScanner.nextPlaceholder(template, 0, named); open >= 0; ) {
+            placeholders++;
+            int close = TemplateScanner.findClose(template, open, named);
+            open = TemplateScanner.nextPlaceholder(template, close + 1, named);
+        }
+
+        String[] literals = new String[placeholders + 1];
+        String[] names = new String[placeholders];
+        int from = 0;
+        for (int slot = 0; slot < placeholders; slot++) {
+            int open = TemplateScanner.nextPlaceholder(template, from, named);
+            int close = TemplateScanner.findClose(template, open, named);
+            literals[slot] = template.subSequence(from, open).toString();
+            names[slot] = template.subSequence(open + 1, close).toString();
+            from = close + 1;
+        }
+        literals[placeholders] = template.subSequence(from, template.length()).toString();
+        return new Template(template instanceof String ? (String) template : null, literals, names);
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import java.util.Arrays;
+
+/**
+ * Single use fluent renderer of a template. Primitive args are kept without boxing and appended to the output when
+ * template is rendered. Renderer and render buffer are reused by current thread, so rendering allocates only the
+ * resulting string:
+ * <pre>{@code
+ *     String line = NStrings.template("{} {} {}").arg(metric).arg(value).arg(timestamp).render();
+ * }</pre>
+ *
+ * Object args are converted to strings on {@link TemplateRenderer#render()}, not when they are passed. Render buffer
+ * is taken only for the duration of that call. Once rendered, renderer is handed out again by the next
+ * {@link Template#renderer()} call on the same thread, so references to it should not be kept. Renderers taken while
+ * the thread's one is not rendered yet (e.g. by args rendering other templates) are separate instances.
+ *
+ * @see Template#renderer()
+ * @since 1.0.1
+ */
+public final class TemplateRenderer {
+    private static final byte OBJECT = 0;
+    private static final byte CHAR_SEQUENCE = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte CHAR = 7;
+    /**
+     * Renderers of templates with more placeholders are not reused not to pin large arrays to pooled threads
+     */
+    private static final int MAX_RETAINED_SLOTS = 32;
+
+    private static final ThreadLocal<TemplateRenderer> LOCAL =
+            ThreadLocal.withInitial(() -> new TemplateRenderer(MAX_RETAINED_SLOTS));
+
+    /**
+     * Reference args by slot
+     */
+    private final Object[] objects;
+    /**
+     * Primitive args by slot, as raw bits for floating point ones
+     */
+    private final long[] primitives;
+    /**
+     * Arg kinds by slot
+     */
+    private final byte[] kinds;
+    /**
+     * Template being rendered, null once rendering is finished
+     */
+    private Template template;
+    /**
+     * Number of placeholders in the template
+     */
+    private int placeholders;
+    /**
+     * Index of the next placeholder to fill
+     */
+    private int slot;
+
+    private TemplateRenderer(int capacity) {
+        this.objects = new Object[capacity];
+        this.primitives = new long[capacity];
+        this.kinds = new byte[capacity];
+    }
+
+    /**
+     * @return renderer of current thread or new instance if that one is not rendered yet
+     */
+    static TemplateRenderer acquire(Template template) {
+        int placeholders = template.getPlaceholderCount();
+        if (placeholders > MAX_RETAINED_SLOTS) {
+            return new TemplateRenderer(placeholders).reset(template, placeholders);
+        }
+        TemplateRenderer renderer = LOCAL.get();
+        if (renderer.template != null) {
+            // used by an outer render or abandoned, new renderer takes its place
+            renderer = new TemplateRenderer(MAX_RETAINED_SLOTS);
+            LOCAL.set(renderer);
+        }
+        return renderer.reset(template, placeholders);
+    }
+
+    /**
+     * Fill the next placeholder with provided value. Values passed after all placeholders are filled are ignored.
+     *
+     * @param value value to inject
+     * @return this renderer
+     */
+    public TemplateRenderer arg(Object value) {
+        if (hasSlot()) {
+            objects[slot] = value;
+            kinds[slot++] = OBJECT;
+        }
+        return this;
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(CharSequence value) {
+        if (hasSlot()) {
+            objects[slot] = value;
+            kinds[slot++] = CHAR_SEQUENCE;
+        }
+        return this;
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(int value) {
+        return primitive(INT, value);
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(long value) {
+        return primitive(LONG, value);
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(double value) {
+        return primitive(DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(float value) {
+        return primitive(FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(boolean value) {
+        return primitive(BOOLEAN, value ? 1 : 0);
+    }
+
+    /**
+     * @param value value to inject
+     * @return this renderer
+     * @see TemplateRenderer#arg(Object)
+     */
+    public TemplateRenderer arg(char value) {
+        return primitive(CHAR, value);
+    }
+
+    /**
+     * Finish rendering. Renderer can't be used after this call.
+     *
+     * @return plain string with injected args
+     * @throws ArrayIndexOutOfBoundsException if there were less args than placeholders
+     * @throws IllegalStateException          if template was already rendered
+     */
+    public String render() {
+        checkNotRendered();
+        try {
+            if (slot < placeholders) {
+                throw new ArrayIndexOutOfBoundsException(slot);
+            }
+            ReusableBuffers buffers = ReusableBuffers.acquire();
+            try {
+                StringBuilder builder = buffers.builder;
+                builder.append(template.literal(0));
+                for (int i = 0; i < placeholders; i++) {
+                    appendArg(builder, i);
+                    builder.append(template.literal(i + 1));
+                }
+                return builder.toString();
+            } finally {
+                buffers.release();
+            }
+        } finally {
+            // renderer is taken till args are rendered, as their toString() may render other templates
+            Arrays.fill(objects, 0, placeholders, null);
+            template = null;
+        }
+    }
+
+    private TemplateRenderer reset(Template template, int placeholders) {
+        this.template = template;
+        this.placeholders = placeholders;
+        this.slot = 0;
+        return this;
+    }
+
+    private TemplateRenderer primitive(byte kind, long value) {
+        if (hasSlot()) {
+            primitives[slot] = value;
+            kinds[slot++] = kind;
+        }
+        return this;
+    }
+
+    private void appendArg(StringBuilder builder, int index) {
+        long value = primitives[index];
+        switch (kinds[index]) {
+            case CHAR_SEQUENCE:
+                builder.append((CharSequence) objects[index]);
+                break;
+            case INT:
+                builder.append((int) value);
+                break;
+            case LONG:
+                builder.append(value);
+                break;
+            case DOUBLE:
+                builder.append(Double.longBitsToDouble(value));
+                break;
+            case FLOAT:
+                builder.append(Float.intBitsToFloat((int) value));
+                break;
+            case BOOLEAN:
+                builder.append(value != 0);
+                break;
+            case CHAR:
+                builder.append((char) value);
+                break;
+            default:
+                builder.append(objects[index]);
+        }
+    }
+
+    private boolean hasSlot() {
+        checkNotRendered();
+        return slot < placeholders;
+    }
+
+    private void checkNotRendered() {
+        if (template == null) {
+            throw new IllegalStateException("Template was already rendered");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+
+/**
+ * Placeholder search over any char sequence. Works in place - template is never copied, positions are plain ints.
+ * Strings are searched with {@link String#indexOf(int, int)}, which skips literal text much faster than char by char
+ * loop.
+ *
+ * Placeholder starts with '{' that is not the last char of template. Simple placeholder is '{' immediately followed by
+ * '}', named one lasts till the nearest '}'. Braces that do not form a placeholder are plain text.
+ *
+ * @since 1.0.1
+ */
+@UtilityClass
+class TemplateScanner {
+
+    /**
+     * Find the start of the next placeholder.
+     *
+     * @param template string template with placeholders
+     * @param from     index to start search from
+     * @param named    whether placeholders may contain names
+     * @return index of placeholder's '{' or -1 if there are no more placeholders
+     */
+    static int nextPlaceholder(CharSequence template, int from, boolean named) {
+        int open = indexOf(template, '{', from, template.length() - 1);
+        while (open >= 0) {
+            if (findClose(template, open, named) >= 0) {
+                return open;
+            }
+            if (named) {
+                // no '}' till the end, so none of the following braces can be closed either
+                return -1;
+            }
+            open = indexOf(template, '{', open + 1, template.length() - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Find the end of placeholder.
+     *
+     * @param template string template with placeholders
+     * @param open     index of placeholder's '{', must not be the last char
+     * @param named    whether placeholders may contain names
+     * @return index of placeholder's '}' or -1 if brace is not closed
+     */
+    static int findClose(CharSequence template, int open, boolean named) {
+        if (!named) {
+            return template.charAt(open + 1) == '}' ? open + 1 : -1;
+        }
+        return indexOf(template, '}', open + 1, template.length());
+    }
+
+    /**
+     * Render template without compiling it, appending literal text straight from template source.
+     *
+     * @param template string template with placeholders
+     * @param named    whether placeholders may contain names
+     * @param target   appendable to write rendered template to
+     * @param args     args to inject in template
+     * @throws IOException                    if target fails to append
+     * @throws ArrayIndexOutOfBoundsException if there are less args than placeholders
+     */
+    static void render(CharSequence template, boolean named, Appendable target, Object[] args) throws IOException {
+        int from = 0;
+        int slot = 0;
+        int open = nextPlaceholder(template, from, named);
+        while (open >= 0) {
+            int close = findClose(template, open, named);
+            target.append(template, from, open);
+            target.append(Template.toChars(args[slot++]));
+            from = close + 1;
+            open = nextPlaceholder(template, from, named);
+        }
+        target.append(template, from, template.length());
+    }
+
+    /**
+     * @return index of char in range [from, to) or -1 if not found
+     */
+    private static int indexOf(CharSequence template, char c, int from, int to) {
+        if (template instanceof String) {
+            int index = ((String) template).indexOf(c, from);
+            return index < to ? index : -1;
+        }
+        for (int i = from; i < to; i++) {
+            if (template.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
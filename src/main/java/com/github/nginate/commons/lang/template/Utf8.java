@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2016
+ * Maksim Lozbin <maksmtua@gmail.com>
+ * Oleksii Ihnachuk <legioner.alexei@gmail.com>
+ *
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See http://www.wtfpl.net/ for more details.
+ */
+package com.github.nginate.commons.lang.template;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * UTF-8 encoder writing char sequences straight to byte targets, without intermediate strings or byte arrays. Malformed
+ * surrogates are replaced with '?', same as {@link String#getBytes(java.nio.charset.Charset)} does.
+ *
+ * @since 1.0.1
+ */
+@UtilityClass
+class Utf8 {
+    /**
+     * Longest encoded form of a single code point
+     */
+    private static final int MAX_BYTES_PER_CHAR = 4;
+    private static final byte REPLACEMENT = '?';
+
+    /**
+     * Encode chars into buffer, starting at its current position.
+     *
+     * @param chars  chars to encode
+     * @param target buffer to write to
+     * @return false if there is not enough space in buffer. Part of chars may have been written in this case
+     */
+    static boolean encode(CharSequence chars, ByteBuffer target) {
+        int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                if (!target.hasRemaining()) {
+                    return false;
+                }
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                if (target.remaining() < 2) {
+                    return false;
+                }
+                target.put((byte) (0xC0 | c >> 6));
+                target.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    if (target.remaining() < 4) {
+                        return false;
+                    }
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    target.put((byte) (0xF0 | codePoint >> 18));
+                    target.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    target.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    target.put((byte) (0x80 | codePoint & 0x3F));
+                } else {
+                    if (!target.hasRemaining()) {
+                        return false;
+                    }
+                    target.put(REPLACEMENT);
+                }
+            } else {
+                if (target.remaining() < 3) {
+                    return false;
+                }
+                target.put((byte) (0xE0 | c >> 12));
+                target.put((byte) (0x80 | c >> 6 & 0x3F));
+                target.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encode chars into stream, using provided array as a write buffer.
+     *
+     * @param chars  chars to encode
+     * @param target stream to write to
+     * @param chunk  scratch array, at least 4 bytes long
+     * @throws IOException if stream fails to write
+     */
+    static void encode(CharSequence chars, OutputStream target, byte[] chunk) throws IOException {
+        int length = chars.length();
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (position > chunk.length - MAX_BYTES_PER_CHAR) {
+                target.write(chunk, 0, position);
+                position = 0;
+            }
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                chunk[position++] = (byte) c;
+            } else if (c < 0x800) {
+                chunk[position++] = (byte) (0xC0 | c >> 6);
+                chunk[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    chunk[position++] = (byte) (0xF0 | codePoint >> 18);
+                    chunk[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    chunk[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    chunk[position++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    chunk[position++] = REPLACEMENT;
+                }
+            } else {
+                chunk[position++] = (byte) (0xE0 | c >> 12);
+                chunk[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                chunk[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        if (position > 0) {
+            target.write(chunk, 0, position);
+        }
+    }
+}
@@ -2,9 +2,37 @@ package com.github.nginate.commons.lang;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.github.nginate.commons.lang.NStrings.compile;
+import static com.github.nginate.commons.lang.NStrings.compileNamed;
 import static com.github.nginate.commons.lang.NStrings.format;
+import static com.github.nginate.commons.lang.NStrings.formatBean;
+import static com.github.nginate.commons.lang.NStrings.formatBufferedTo;
 import static com.github.nginate.commons.lang.NStrings.formatNamed;
+import static com.github.nginate.commons.lang.NStrings.formatNamedBufferedTo;
+import static com.github.nginate.commons.lang.NStrings.formatNamedTo;
+import static com.github.nginate.commons.lang.NStrings.formatTo;
+import static com.github.nginate.commons.lang.NStrings.formatToBytes;
+import static com.github.nginate.commons.lang.NStrings.lazy;
+import static com.github.nginate.commons.lang.NStrings.renderAll;
+import static com.github.nginate.commons.lang.NStrings.template;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class NStringsTest {
 
@@ -25,4 +53,285 @@ public class NStringsTest {
         assertThat(formatNamed("abc asd {asd} { {qwe}", "test", "test2")).isEqualTo("abc asd test test2");
         assertThat(formatNamed("abc { asd {{{{ asd", "test")).isEqualTo("abc { asd {{{{ asd");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFormatCachedTemplate() throws Exception {
+        // same template is rendered from cache on subsequent calls
+        assertThat(format("{} + {}", 1, 2)).isEqualTo("1 + 2");
+        assertThat(format("{} + {}", 3, 4)).isEqualTo("3 + 4");
+        assertThat(formatNamed("{a} + {b}", 5, 6)).isEqualTo("5 + 6");
+    }
+
+    @Test
+    public void testFormatManyDistinctTemplates() throws Exception {
+        String hot = "hot {}";
+        for (int i = 0; i < 5000; i++) {
+            assertThat(format("cold " + i + " {}", i)).isEqualTo("cold " + i + " " + i);
+            assertThat(format(hot, i)).isEqualTo("hot " + i);
+        }
+        NStrings.SIMPLE_TEMPLATES.cleanUp();
+
+        // cache stays bounded, and frequently used template is not evicted by one-off ones
+        assertThat(NStrings.SIMPLE_TEMPLATES.estimatedSize()).isLessThanOrEqualTo(1024);
+        assertThat(NStrings.SIMPLE_TEMPLATES.getIfPresent(hot)).isNotNull();
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        assertThat(compile("abc asd {} { {}").render("test", "test2")).isEqualTo("abc asd test { test2");
+        assertThat(compileNamed("abc asd {asd} { {qwe}").render("test", "test2")).isEqualTo("abc asd test test2");
+    }
+
+    @Test
+    public void testFormatTo() throws Exception {
+        StringBuilder builder = new StringBuilder("> ");
+        formatTo(builder, "abc {} asd {}", "test", 1);
+        formatNamedTo(builder, " {arg}", new StringBuilder("test2"));
+        assertThat(builder.toString()).isEqualTo("> abc test asd 1 test2");
+
+        StringWriter writer = formatTo(new StringWriter(), "{} abc asd", "test");
+        assertThat(writer.toString()).isEqualTo("test abc asd");
+    }
+
+    @Test
+    public void testFormatBufferedTo() throws Exception {
+        StringWriter writer = new StringWriter();
+        formatBufferedTo(writer, "abc {} asd", "test");
+        formatNamedBufferedTo(writer, " {arg}", "test2");
+        assertThat(writer.toString()).isEqualTo("abc test asd test2");
+    }
+
+    @Test
+    public void testFormatBufferedToNested() throws Exception {
+        // arg renders itself with same thread buffers while outer call still holds them
+        Object nested = new Object() {
+            @Override
+            public String toString() {
+                return formatBufferedTo(new StringBuilder(), "[{}]", "inner").toString();
+            }
+        };
+        StringWriter writer = formatBufferedTo(new StringWriter(), "outer {} outer", nested);
+        assertThat(writer.toString()).isEqualTo("outer [inner] outer");
+    }
+
+    @Test
+    public void testFormatBufferedToLongMessage() throws Exception {
+        String longArg = new String(new char[5000]).replace('\0', 'x');
+        StringWriter writer = formatBufferedTo(new StringWriter(), "{}|{}", longArg, longArg);
+        assertThat(writer.toString()).isEqualTo(longArg + "|" + longArg);
+    }
+
+    @Test
+    public void testFormatNamedFromMap() throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "test");
+        values.put("user", new User("john", new Address("Kyiv")));
+        values.put("nested", values);
+
+        assertThat(formatNamed("{name} abc {name}", values)).isEqualTo("test abc test");
+        assertThat(formatNamed("{user.name} from {user.address.city}", values)).isEqualTo("john from Kyiv");
+        assertThat(formatNamed("{nested.name} {missing} {missing.value}", values)).isEqualTo("test null null");
+    }
+
+    @Test
+    public void testFormatBean() throws Exception {
+        User user = new User("john", new Address("Kyiv"));
+
+        assertThat(formatBean("{name} {active} {address.city} {address.zip}", user))
+                .isEqualTo("john true Kyiv 01001");
+        // accessors are cached, second pass must produce same result
+        assertThat(formatBean("{name} {active} {address.city} {address.zip}", user))
+                .isEqualTo("john true Kyiv 01001");
+        assertThat(formatBean("{address.city.empty}", user)).isEqualTo("false");
+    }
+
+    @Test
+    public void testFormatBeanWithMissingProperty() throws Exception {
+        assertThatThrownBy(() -> formatBean("{name} {surname}", new User("john", null)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> formatBean("{}", new User("john", null)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testFormatBeanWithFailingProperty() throws Exception {
+        Object bean = new Object() {
+            public String getName() {
+                throw new IllegalStateException("test");
+            }
+        };
+
+        assertThatThrownBy(() -> formatBean("{name}", bean))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Could not read property 'name' of " + bean.getClass().getName())
+                .hasCauseExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testFormatBeanDoesNotPinClassLoader() throws Exception {
+        URL classes = Bean.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes}, null);
+        Class<?> type = loader.loadClass(Bean.class.getName());
+        assertThat(type).isNotSameAs(Bean.class);
+        assertThat(formatBean("{name}", type.getConstructor().newInstance())).isEqualTo("bean");
+
+        WeakReference<ClassLoader> reference = new WeakReference<>(loader);
+        loader.close();
+        loader = null;
+        type = null;
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+        }
+        assertThat(reference.get()).isNull();
+    }
+
+    public static class Bean {
+        public String getName() {
+            return "bean";
+        }
+    }
+
+    public static class User {
+        private final String name;
+        private final Address address;
+
+        User(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    private static class Address {
+        public final String zip = "01001";
+        private final String city;
+
+        Address(String city) {
+            this.city = city;
+        }
+
+        public String city() {
+            return city;
+        }
+    }
+
+    @Test
+    public void testLazy() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                return "test" + renders.incrementAndGet();
+            }
+        };
+
+        CharSequence message = lazy("abc {} asd", arg);
+        // nothing is rendered until message is read
+        assertThat(renders.get()).isZero();
+
+        assertThat(message.length()).isEqualTo(13);
+        assertThat(message.charAt(4)).isEqualTo('t');
+        assertThat(message.subSequence(4, 9)).isEqualTo("test1");
+        assertThat(message.toString()).isEqualTo("abc test1 asd");
+        // and it is rendered only once
+        assertThat(renders.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLazyCompiled() throws Exception {
+        assertThat(compileNamed("{a} abc {b}").lazy(1, 2).get()).isEqualTo("1 abc 2");
+    }
+
+    @Test
+    public void testFormatToBytes() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        assertThat(formatToBytes(buffer, "abc {} asd", "тест")).isTrue();
+        assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8)).isEqualTo("abc тест asd");
+
+        ByteArrayOutputStream stream = formatToBytes(new ByteArrayOutputStream(), "{} abc asd", 1);
+        assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("1 abc asd");
+    }
+
+    @Test
+    public void testFormatFixedArity() throws Exception {
+        assertThat(format("{}", 1)).isEqualTo("1");
+        assertThat(format("{}{}", 1, 2)).isEqualTo("12");
+        assertThat(format("{}{}{}", 1, 2, 3)).isEqualTo("123");
+        assertThat(format("{}{}{}{}", 1, 2, 3, 4)).isEqualTo("1234");
+        assertThat(format("{}{}{}{}{}", 1, 2, 3, 4, 5)).isEqualTo("12345");
+        // array is still treated as args
+        assertThat(format("{}{}", new Object[]{1, 2})).isEqualTo("12");
+    }
+
+    @Test
+    public void testTemplate() throws Exception {
+        assertThat(template("{} took {} ms").arg("request").arg(15L).render()).isEqualTo("request took 15 ms");
+    }
+
+    @Test
+    public void testRenderAll() throws Exception {
+        List<Object[]> rows = Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, null});
+        StringWriter writer = new StringWriter();
+
+        assertThat(renderAll("{},{}\n", rows.iterator(), writer)).isEqualTo(3);
+        assertThat(writer.toString()).isEqualTo("1,a\n2,b\n3,null\n");
+    }
+
+    @Test
+    public void testRenderAllWithHugeBatch() throws Exception {
+        List<Object[]> rows = Arrays.asList(new Object[]{1, "a"}, new Object[]{2, "b"});
+        StringWriter writer = new StringWriter();
+
+        assertThat(renderAll("{},{}\n", rows.iterator(), writer, Integer.MAX_VALUE)).isEqualTo(2);
+        assertThat(writer.toString()).isEqualTo("1,a\n2,b\n");
+    }
+
+    @Test
+    public void testRenderAllInBatches() throws Exception {
+        int batchSize = 100;
+        AtomicInteger maxWrite = new AtomicInteger();
+        StringBuilder result = new StringBuilder();
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                maxWrite.accumulateAndGet(len, Math::max);
+                result.append(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        long count = renderAll("{};{}\n", IntStream.range(0, 10_000).mapToObj(i -> new Object[]{i, i * 2}), writer,
+                batchSize);
+
+        assertThat(count).isEqualTo(10_000);
+        // buffer is written out as soon as it exceeds batch size, so writes never grow with the number of rows
+        assertThat(maxWrite.get()).isLessThan(batchSize + 20);
+        assertThat(result.toString()).startsWith("0;0\n1;2\n").endsWith("9999;19998\n");
+    }
+
+    @Test
+    public void testFormatToFromCharSequence() throws Exception {
+        assertThat(formatTo(new StringBuilder(), CharBuffer.wrap("abc {} asd"), "test").toString())
+                .isEqualTo("abc test asd");
+        assertThat(formatNamedTo(new StringWriter(), new StringBuilder("{a} abc {b}"), 1, 2).toString())
+                .isEqualTo("1 abc 2");
+    }
+}
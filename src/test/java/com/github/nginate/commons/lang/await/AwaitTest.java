@@ -3,20 +3,53 @@ package com.github.nginate.commons.lang.await;
 import com.google.common.base.Stopwatch;
 import org.assertj.core.data.Percentage;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.github.nginate.commons.lang.await.Await.untilAsync;
+import static com.github.nginate.commons.lang.await.Await.untilPath;
+import static com.github.nginate.commons.lang.await.Await.waitFor;
+import static com.github.nginate.commons.lang.await.Await.waitForAsync;
 import static com.github.nginate.commons.lang.await.Await.waitUntil;
+import static com.github.nginate.commons.lang.await.Await.waitUntilAll;
+import static com.github.nginate.commons.lang.await.Await.waitUntilBounded;
+import static com.github.nginate.commons.lang.await.Await.waitUntilSignalled;
+import static com.github.nginate.commons.lang.await.Await.waitUntilAny;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 public class AwaitTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
     @Mock
     private Callable<Boolean> callable;
 
@@ -117,4 +150,519 @@ public class AwaitTest {
         verify(callable, atMost(count+1)).call();
         verify(callable, atLeast(count)).call();
     }
+
+    @Test
+    public void waitUntilSignalledWakesOnSignal() throws Exception {
+        Signal signal = new Signal();
+        AtomicBoolean ready = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            sleepQuietly(100);
+            ready.set(true);
+            signal.signal();
+        });
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        producer.start();
+        // step is long enough to fail the check below if waiter was not woken up by signal
+        waitUntilSignalled(10000, 5000, signal, ready::get);
+        stopwatch.stop();
+        producer.join();
+
+        assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(2000);
+    }
+
+    @Test
+    public void waitUntilWithNullMessage() throws Exception {
+        doReturn(true).when(callable).call();
+
+        // null message used to be ambiguous with signal overloads
+        waitUntil(10000, null, callable);
+        waitUntil(10000, 50, null, callable);
+        verify(callable, times(2)).call();
+    }
+
+    @Test
+    public void waitUntilNotSignalledFallsBackToPolling() throws Exception {
+        Signal signal = new Signal();
+        AtomicBoolean ready = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            sleepQuietly(100);
+            ready.set(true);
+        });
+
+        producer.start();
+        waitUntilSignalled(5000, 200, signal, ready::get);
+        producer.join();
+    }
+
+    @Test
+    public void waitUntilSignalledWithFailure() throws Exception {
+        Signal signal = new Signal();
+        doReturn(false).when(callable).call();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                sleepQuietly(20);
+                signal.signal();
+            }
+        });
+
+        producer.start();
+        assertThatThrownBy(() -> waitUntilSignalled(300, 300, signal, callable))
+                .isExactlyInstanceOf(ConditionTimeoutException.class);
+        producer.join();
+        // each signal triggers condition check
+        verify(callable, atLeast(2)).call();
+    }
+
+    @Test
+    public void untilAsyncWithSuccess() throws Exception {
+        AtomicBoolean ready = new AtomicBoolean();
+        CompletableFuture<Void> future = untilAsync(5000, 20, ready::get);
+
+        assertThat(future).isNotDone();
+        ready.set(true);
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void untilAsyncWithFailure() throws Exception {
+        doReturn(false).when(callable).call();
+        CompletableFuture<Void> future = untilAsync(300, 100, "message", callable);
+
+        assertThatThrownBy(future::join)
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(ConditionTimeoutException.class);
+        verify(callable, atMost(4)).call();
+    }
+
+    @Test
+    public void untilAsyncExceptionPropagation() throws Exception {
+        doThrow(IOException.class).when(callable).call();
+
+        assertThatThrownBy(() -> untilAsync(300, 100, callable).join())
+                .isExactlyInstanceOf(CompletionException.class)
+                .hasCauseExactlyInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void untilAsyncErrorPropagation() throws Exception {
+        doThrow(AssertionError.class).when(callable).call();
+
+        CompletableFuture<Void> future = untilAsync(10000, 100, callable);
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                .isExactlyInstanceOf(ExecutionException.class)
+                .hasCauseExactlyInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    public void untilAsyncWithWrongStep() throws Exception {
+        assertThatThrownBy(() -> untilAsync(1000, 2000, callable))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> untilAsync(1000, 0, callable))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void untilAsyncManyConcurrentWaits() throws Exception {
+        AtomicBoolean ready = new AtomicBoolean();
+        int threadsBefore = Thread.activeCount();
+        List<CompletableFuture<Void>> futures = IntStream.range(0, 1000)
+                .mapToObj(i -> untilAsync(10000, 10, ready::get))
+                .collect(Collectors.toList());
+
+        // waits are not holding a thread each
+        assertThat(Thread.activeCount() - threadsBefore).isLessThan(10);
+        ready.set(true);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void untilAsyncCancel() throws Exception {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        try {
+            AtomicInteger checks = new AtomicInteger();
+            CountDownLatch checked = new CountDownLatch(3);
+            CompletableFuture<Void> future = untilAsync(5000, 10, null, scheduler, () -> {
+                checks.incrementAndGet();
+                checked.countDown();
+                return false;
+            });
+            assertThat(checked.await(5, TimeUnit.SECONDS)).isTrue();
+            int checksBeforeCancel = checks.get();
+            assertThat(future.cancel(false)).isTrue();
+
+            // check chain ends: the next scheduled run sees cancelled future and does not reschedule itself
+            waitUntil(4000, 10, () -> scheduler.getQueue().isEmpty()
+                    && scheduler.getCompletedTaskCount() == scheduler.getTaskCount());
+            // only the check running at the moment of cancel may have finished after it
+            assertThat(checks.get()).isBetween(checksBeforeCancel, checksBeforeCancel + 1);
+            assertThat(future).isCancelled();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilWithStrategy() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        waitUntil(Duration.ofSeconds(5), PollStrategies.exponential(Duration.ofMillis(1), Duration.ofMillis(50)),
+                () -> checks.incrementAndGet() == 5);
+
+        assertThat(checks.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void waitUntilWithStrategyFailure() throws Exception {
+        doReturn(false).when(callable).call();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        assertThatThrownBy(() -> waitUntil(Duration.ofMillis(300), PollStrategies.fixed(Duration.ofSeconds(10)),
+                "message", callable))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessage("message");
+        // pause is cut by the end of wait
+        assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isBetween(300L, 5000L);
+    }
+
+    @Test
+    public void waitUntilWithAdaptiveStrategy() throws Exception {
+        long readyAt = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(200);
+        waitUntil(Duration.ofSeconds(5), PollStrategies.adaptive(100, 100, Duration.ofMillis(1), Duration.ofMillis(10)),
+                () -> System.nanoTime() >= readyAt);
+        assertThat(System.nanoTime() - readyAt).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void waitUntilWithNonPositiveDuration() throws Exception {
+        assertThatThrownBy(() -> waitUntil(Duration.ZERO, PollStrategies.fixed(Duration.ofMillis(1)), callable))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> untilAsync(Duration.ofMillis(-1), PollStrategies.fixed(Duration.ofMillis(1)),
+                callable))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void untilAsyncWithStrategy() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        untilAsync(Duration.ofSeconds(5), PollStrategies.exponential(Duration.ofMillis(1), Duration.ofMillis(50)),
+                () -> checks.incrementAndGet() == 5).get(5, TimeUnit.SECONDS);
+
+        assertThat(checks.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void waitUntilAllDropsSatisfiedConditions() throws Exception {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        waitUntilAll(Duration.ofSeconds(5), () -> first.incrementAndGet() >= 1, () -> second.incrementAndGet() >= 3);
+
+        assertThat(first.get()).isEqualTo(1);
+        assertThat(second.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void waitUntilAllListsUnmetConditions() throws Exception {
+        Map<String, Callable<Boolean>> conditions = new LinkedHashMap<>();
+        conditions.put("ready", () -> true);
+        conditions.put("started", () -> false);
+        conditions.put("connected", () -> false);
+
+        assertThatThrownBy(() -> waitUntilAll(Duration.ofMillis(300), PollStrategies.fixed(Duration.ofMillis(10)),
+                null, conditions))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessageContaining("[started, connected]")
+                .matches(e -> ((ConditionTimeoutException) e).getUnmetConditions()
+                        .equals(Arrays.asList("started", "connected")));
+    }
+
+    @Test
+    public void waitUntilAllInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Map<String, Callable<Boolean>> conditions = new LinkedHashMap<>();
+            for (int i = 0; i < 3; i++) {
+                conditions.put("slow" + i, () -> {
+                    sleepQuietly(200);
+                    return true;
+                });
+            }
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            waitUntilAll(Duration.ofSeconds(5), PollStrategies.fixed(Duration.ofMillis(10)), executor, conditions);
+
+            // checks are not serialized
+            assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(550L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilAllAbandonsHungCondition() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch never = new CountDownLatch(1);
+        try {
+            Map<String, Callable<Boolean>> conditions = new LinkedHashMap<>();
+            conditions.put("hung", () -> {
+                never.await();
+                return true;
+            });
+            conditions.put("ready", () -> true);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+
+            assertThatThrownBy(() -> waitUntilAll(Duration.ofMillis(300), PollStrategies.fixed(Duration.ofMillis(10)),
+                    executor, conditions))
+                    .isExactlyInstanceOf(ConditionTimeoutException.class)
+                    .matches(e -> ((ConditionTimeoutException) e).getUnmetConditions()
+                            .equals(Collections.singletonList("hung")));
+            assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(2000L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilAllPropagatesConditionFailure() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Map<String, Callable<Boolean>> conditions = new LinkedHashMap<>();
+            conditions.put("broken", () -> {
+                throw new IllegalStateException("broken");
+            });
+            assertThatThrownBy(() -> waitUntilAll(Duration.ofSeconds(1), PollStrategies.fixed(Duration.ofMillis(10)),
+                    executor, conditions))
+                    .isExactlyInstanceOf(IllegalStateException.class)
+                    .hasMessage("broken");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilAnyReturnsSatisfiedCondition() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        int satisfied = waitUntilAny(Duration.ofSeconds(5), () -> false, () -> checks.incrementAndGet() == 2,
+                () -> false);
+
+        assertThat(satisfied).isEqualTo(1);
+        assertThat(checks.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void waitUntilAnyTimeout() throws Exception {
+        assertThatThrownBy(() -> waitUntilAny(Duration.ofMillis(100), () -> false, () -> false))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessageContaining("[#0, #1]");
+        assertThatThrownBy(() -> waitUntilAny(Duration.ofMillis(100), new LinkedHashMap<>()))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void waitUntilCompensatesForkJoinPool() throws Exception {
+        int tasks = 8;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            AtomicInteger arrived = new AtomicInteger();
+            Signal allArrived = new Signal();
+            // each task waits for all others, so it completes only if pool adds workers for waiting ones
+            List<CompletableFuture<Void>> futures = IntStream.range(0, tasks)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        if (arrived.incrementAndGet() == tasks) {
+                            allArrived.signal();
+                        }
+                        if (i % 2 == 0) {
+                            waitUntil(Duration.ofSeconds(10), PollStrategies.fixed(Duration.ofMillis(50)),
+                                    () -> arrived.get() == tasks);
+                        } else {
+                            waitUntilSignalled(10000, 50, "not all arrived", allArrived, () -> arrived.get() == tasks);
+                        }
+                    }, pool))
+                    .collect(Collectors.toList());
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[tasks])).get(5, TimeUnit.SECONDS);
+            assertThat(arrived.get()).isEqualTo(tasks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilBoundedCompensatesForkJoinPool() throws Exception {
+        int tasks = 8;
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            CountDownLatch allArrived = new CountDownLatch(tasks);
+            // condition itself blocks till all tasks arrive, so waiters block in getting its result
+            List<CompletableFuture<Void>> futures = IntStream.range(0, tasks)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        allArrived.countDown();
+                        waitUntilBounded(Duration.ofSeconds(10), PollStrategies.fixed(Duration.ofMillis(50)),
+                                () -> allArrived.await(10, TimeUnit.SECONDS));
+                    }, pool))
+                    .collect(Collectors.toList());
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[tasks])).get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilBoundedAbandonsHungCondition() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger checks = new AtomicInteger();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        assertThatThrownBy(() -> waitUntilBounded(Duration.ofMillis(300), PollStrategies.fixed(Duration.ofMillis(10)),
+                () -> {
+                    if (checks.incrementAndGet() < 3) {
+                        return false;
+                    }
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return true;
+                }))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessageContaining("attempts: 3")
+                .matches(e -> ((ConditionTimeoutException) e).getAttempts() == 3)
+                .matches(e -> ((ConditionTimeoutException) e).getSlowestAttempt().toMillis() >= 200);
+
+        assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(2000L);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void waitUntilBoundedSucceeds() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicInteger checks = new AtomicInteger();
+            waitUntilBounded(Duration.ofSeconds(5), PollStrategies.fixed(Duration.ofMillis(10)), "message", executor,
+                    () -> checks.incrementAndGet() == 3);
+
+            assertThat(checks.get()).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitUntilBoundedPropagatesConditionFailure() throws Exception {
+        assertThatThrownBy(() -> waitUntilBounded(Duration.ofSeconds(1), PollStrategies.fixed(Duration.ofMillis(10)),
+                () -> {
+                    throw new IllegalStateException("broken");
+                }))
+                .isExactlyInstanceOf(IllegalStateException.class)
+                .hasMessage("broken");
+    }
+
+    @Test
+    public void untilPathWakesOnCreation() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("segment");
+        CompletableFuture.runAsync(() -> {
+            sleepQuietly(200);
+            try {
+                Files.createFile(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        // poll step is much longer than the whole test, only the event may end the wait in time
+        untilPath(file, Files::exists, Duration.ofSeconds(30), PollStrategies.fixed(Duration.ofSeconds(20)));
+
+        assertThat(stopwatch.elapsed(TimeUnit.MILLISECONDS)).isLessThan(10000L);
+    }
+
+    @Test
+    public void untilPathWakesOnDeletion() throws Exception {
+        Path lock = temporaryFolder.newFile("lock").toPath();
+        CompletableFuture.runAsync(() -> {
+            sleepQuietly(200);
+            lock.toFile().delete();
+        });
+        untilPath(lock, Files::notExists, Duration.ofSeconds(30));
+
+        assertThat(Files.exists(lock)).isFalse();
+    }
+
+    @Test
+    public void untilPathPollsMissingDirectory() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath().resolve("missing");
+        Path file = directory.resolve("file");
+        CompletableFuture.runAsync(() -> {
+            sleepQuietly(200);
+            try {
+                Files.createDirectories(directory);
+                Files.createFile(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        untilPath(file, Files::exists, Duration.ofSeconds(30), PollStrategies.fixed(Duration.ofMillis(50)));
+
+        assertThat(Files.exists(file)).isTrue();
+    }
+
+    @Test
+    public void untilPathTimeout() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("never");
+        assertThatThrownBy(() -> untilPath(file, Files::exists, Duration.ofMillis(300)))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessageContaining("attempts:")
+                .matches(e -> ((ConditionTimeoutException) e).getAttempts() > 0);
+    }
+
+    @Test
+    public void waitForReturnsAcceptedValue() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        String value = waitFor(Duration.ofSeconds(5), PollStrategies.fixed(Duration.ofMillis(10)), "message",
+                () -> probes.incrementAndGet() < 3 ? null : "resource" + probes.get(), v -> v != null);
+
+        assertThat(value).isEqualTo("resource3");
+        assertThat(probes.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void waitForTimeout() throws Exception {
+        assertThatThrownBy(() -> waitFor(Duration.ofMillis(300), () -> "missing", "found"::equals))
+                .isExactlyInstanceOf(ConditionTimeoutException.class)
+                .hasMessage("Waiting for condition timed out");
+    }
+
+    @Test
+    public void waitForAsyncReturnsAcceptedValue() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AtomicInteger probes = new AtomicInteger();
+            CompletableFuture<Integer> future = waitForAsync(Duration.ofSeconds(5),
+                    PollStrategies.fixed(Duration.ofMillis(10)), "message", scheduler, probes::incrementAndGet,
+                    v -> v == 4);
+
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(4);
+            assertThat(probes.get()).isEqualTo(4);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitForAsyncCancel() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+        CompletableFuture<Integer> future = waitForAsync(Duration.ofSeconds(5), probes::incrementAndGet, v -> false);
+        future.cancel(false);
+        int cancelledAt = probes.get();
+        sleepQuietly(500);
+
+        assertThat(probes.get()).isLessThanOrEqualTo(cancelledAt + 1);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.github.nginate.commons.lang.await;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.nginate.commons.lang.await.PollStrategies.adaptive;
+import static com.github.nginate.commons.lang.await.PollStrategies.exponential;
+import static com.github.nginate.commons.lang.await.PollStrategies.fixed;
+import static com.github.nginate.commons.lang.await.PollStrategies.jittered;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PollStrategiesTest {
+
+    @Test
+    public void testFixed() throws Exception {
+        PollStrategy strategy = fixed(Duration.ofMillis(100));
+
+        assertThat(strategy.delayNanos(1)).isEqualTo(100_000_000);
+        assertThat(strategy.delayNanos(1000)).isEqualTo(100_000_000);
+    }
+
+    @Test
+    public void testExponential() throws Exception {
+        PollStrategy strategy = exponential(Duration.ofNanos(10), Duration.ofNanos(100));
+
+        assertThat(strategy.delayNanos(1)).isEqualTo(10);
+        assertThat(strategy.delayNanos(2)).isEqualTo(20);
+        assertThat(strategy.delayNanos(3)).isEqualTo(40);
+        assertThat(strategy.delayNanos(4)).isEqualTo(80);
+        assertThat(strategy.delayNanos(5)).isEqualTo(100);
+        assertThat(strategy.delayNanos(Integer.MAX_VALUE)).isEqualTo(100);
+
+        assertThat(exponential(Duration.ofNanos(10), 1.5, Duration.ofNanos(100)).delayNanos(3)).isEqualTo(22);
+    }
+
+    @Test
+    public void testJittered() throws Exception {
+        PollStrategy strategy = jittered(fixed(Duration.ofNanos(1000)), 0.5);
+
+        for (int attempt = 1; attempt < 1000; attempt++) {
+            assertThat(strategy.delayNanos(attempt)).isBetween(500L, 1000L);
+        }
+        assertThat(jittered(fixed(Duration.ofNanos(1000)), 0).delayNanos(1)).isEqualTo(1000);
+    }
+
+    @Test
+    public void testJitteredDelegatesIdle() throws Exception {
+        List<Long> pauses = new ArrayList<>();
+        PollStrategy custom = new PollStrategy() {
+            @Override
+            public long delayNanos(int attempt) {
+                return attempt == 1 ? 0 : 1000;
+            }
+
+            @Override
+            public void idle(int attempt, long maxNanos) throws InterruptedException {
+                pauses.add(maxNanos);
+            }
+        };
+        PollStrategy strategy = jittered(custom, 0.5);
+
+        strategy.idle(1, Long.MAX_VALUE);
+        strategy.idle(2, Long.MAX_VALUE);
+        strategy.idle(2, 100);
+
+        // zero delay is left to wrapped strategy, others are capped by jittered delay
+        assertThat(pauses).hasSize(3);
+        assertThat(pauses.get(0)).isEqualTo(Long.MAX_VALUE);
+        assertThat(pauses.get(1)).isBetween(500L, 1000L);
+        assertThat(pauses.get(2)).isEqualTo(100);
+    }
+
+    @Test
+    public void testAdaptive() throws Exception {
+        PollStrategy strategy = adaptive(2, 3, Duration.ofNanos(10), Duration.ofNanos(30));
+
+        // spins and yields do not pause
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            assertThat(strategy.delayNanos(attempt)).isZero();
+            strategy.idle(attempt, Long.MAX_VALUE);
+        }
+        assertThat(strategy.delayNanos(6)).isEqualTo(10);
+        assertThat(strategy.delayNanos(7)).isEqualTo(20);
+        assertThat(strategy.delayNanos(8)).isEqualTo(30);
+    }
+
+    @Test
+    public void testWrongArguments() throws Exception {
+        assertThatThrownBy(() -> fixed(Duration.ZERO)).isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> exponential(Duration.ofSeconds(2), Duration.ofSeconds(1)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> exponential(Duration.ofSeconds(1), 0.5, Duration.ofSeconds(2)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> jittered(fixed(Duration.ofSeconds(1)), 1.5))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> adaptive(-1, 0, Duration.ofNanos(1), Duration.ofNanos(1)))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+}
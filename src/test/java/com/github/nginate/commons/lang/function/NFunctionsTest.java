@@ -1,21 +1,66 @@
 package com.github.nginate.commons.lang.function;
 
+import com.github.nginate.commons.lang.function.memoize.FunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.MemoizeSpec;
+import com.github.nginate.commons.lang.function.memoize.MemoizeStats;
+import com.github.nginate.commons.lang.function.memoize.MemoizedFunction;
+import com.github.nginate.commons.lang.function.memoize.MemoizedSupplier;
+import com.github.nginate.commons.lang.function.memoize.PersistentFunctionMemoizer;
+import com.github.nginate.commons.lang.function.memoize.Serializer;
+import com.github.nginate.commons.lang.function.memoize.SupplierMemoizer;
 import com.github.nginate.commons.lang.function.unchecked.RuntimeIOException;
+import org.junit.Assume;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongToIntFunction;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static com.github.nginate.commons.lang.NStrings.format;
 import static com.github.nginate.commons.lang.function.NFunctions.memoize;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeAsync;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeInt;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeIntToInt;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeLong;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeLongToInt;
+import static com.github.nginate.commons.lang.function.NFunctions.memoizeRecursive;
 import static com.github.nginate.commons.lang.function.NFunctions.unchecked;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class NFunctionsTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
     public void testMemoizeSupplier() throws Exception {
@@ -43,6 +88,650 @@ public class NFunctionsTest {
         assertThat(memoizedFunction.apply("key3")).isEqualTo("key3: 3");
     }
 
+    @Test
+    public void testMemoizeSupplierExpireAfterWrite() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong time = new AtomicLong();
+        Supplier<Integer> memoizedSupplier = memoize(counter::incrementAndGet, MemoizeSpec.builder()
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(time::get)
+                .build());
+
+        assertThat(memoizedSupplier.get()).isEqualTo(1);
+        time.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(memoizedSupplier.get()).isEqualTo(1);
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(memoizedSupplier.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeSupplierExpireAfterAccess() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong time = new AtomicLong();
+        Supplier<Integer> memoizedSupplier = memoize(counter::incrementAndGet, MemoizeSpec.builder()
+                .expireAfterAccess(Duration.ofSeconds(10))
+                .ticker(time::get)
+                .build());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(memoizedSupplier.get()).isEqualTo(1);
+            time.addAndGet(Duration.ofSeconds(5).toNanos());
+        }
+        time.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(memoizedSupplier.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeSupplierRefreshAfterWrite() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong time = new AtomicLong();
+        Queue<Runnable> reloads = new ArrayDeque<>();
+        Supplier<Integer> memoizedSupplier = memoize(counter::incrementAndGet, MemoizeSpec.builder()
+                .refreshAfterWrite(Duration.ofSeconds(10))
+                .refreshExecutor(reloads::add)
+                .ticker(time::get)
+                .build());
+
+        assertThat(memoizedSupplier.get()).isEqualTo(1);
+        time.addAndGet(Duration.ofSeconds(11).toNanos());
+        // stale value is served while the single reload is pending
+        assertThat(memoizedSupplier.get()).isEqualTo(1);
+        assertThat(memoizedSupplier.get()).isEqualTo(1);
+        assertThat(reloads).hasSize(1);
+
+        reloads.poll().run();
+        assertThat(memoizedSupplier.get()).isEqualTo(2);
+        assertThat(reloads).isEmpty();
+    }
+
+    @Test
+    public void testMemoizeSupplierRejectsSizeLimit() throws Exception {
+        assertThatThrownBy(() -> memoize(() -> 1, MemoizeSpec.builder().maximumSize(1).build()))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testMemoizeFunctionExpireAfterWrite() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong time = new AtomicLong();
+        Function<String, String> memoizedFunction = memoize(key -> key + counter.incrementAndGet(),
+                MemoizeSpec.builder()
+                        .expireAfterWrite(Duration.ofSeconds(10))
+                        .ticker(time::get)
+                        .build());
+
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key1");
+        time.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key1");
+        time.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key2");
+    }
+
+    @Test
+    public void testMemoizeFunctionRefreshAfterWrite() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong time = new AtomicLong();
+        Queue<Runnable> reloads = new ArrayDeque<>();
+        Function<String, String> memoizedFunction = memoize(key -> key + counter.incrementAndGet(),
+                MemoizeSpec.builder()
+                        .refreshAfterWrite(Duration.ofSeconds(10))
+                        .refreshExecutor(reloads::add)
+                        .ticker(time::get)
+                        .build());
+
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key1");
+        time.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key1");
+        assertThat(counter.get()).isEqualTo(1);
+
+        while (!reloads.isEmpty()) {
+            reloads.poll().run();
+        }
+        assertThat(memoizedFunction.apply("key")).isEqualTo("key2");
+    }
+
+    @Test
+    public void testMemoizeFunctionWithMaximumSize() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<Integer, Integer> memoizedFunction = memoize(key -> {
+            counter.incrementAndGet();
+            return key * 2;
+        }, MemoizeSpec.builder().maximumSize(100).build());
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(memoizedFunction.apply(i)).isEqualTo(i * 2);
+        }
+        counter.set(0);
+        for (int i = 0; i < 1000; i++) {
+            memoizedFunction.apply(i);
+        }
+        // most of inputs were evicted and computed again
+        assertThat(counter.get()).isGreaterThan(500);
+    }
+
+    @Test
+    public void testMemoizeFunctionKeepsFrequentResults() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<Integer, Integer> memoizedFunction = memoize(key -> {
+            counter.incrementAndGet();
+            return key;
+        }, MemoizeSpec.builder().maximumSize(100).build());
+
+        // scan of one-off inputs mixed with frequently used ones
+        for (int i = 1000; i < 11000; i++) {
+            memoizedFunction.apply(i);
+            memoizedFunction.apply(i % 10);
+        }
+        counter.set(0);
+        for (int hot = 0; hot < 10; hot++) {
+            memoizedFunction.apply(hot);
+        }
+        assertThat(counter.get()).isZero();
+    }
+
+    @Test
+    public void testMemoizeFunctionWithMaximumWeight() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<Integer, byte[]> memoizedFunction = memoize(key -> {
+            counter.incrementAndGet();
+            return new byte[100];
+        }, MemoizeSpec.builder().maximumWeight(1000, (Integer key, byte[] value) -> value.length).build());
+
+        for (int i = 0; i < 100; i++) {
+            memoizedFunction.apply(i);
+        }
+        counter.set(0);
+        for (int i = 0; i < 100; i++) {
+            memoizedFunction.apply(i);
+        }
+        assertThat(counter.get()).isGreaterThan(50);
+    }
+
+    @Test
+    public void testMemoizeSpecValidation() throws Exception {
+        assertThatThrownBy(() -> MemoizeSpec.builder().maximumSize(-1))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MemoizeSpec.builder().maximumSize(10).maximumWeight(10, (k, v) -> 1))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testMemoizeAsyncSharesPendingLoad() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CompletableFuture<String> load = new CompletableFuture<>();
+        Function<String, CompletableFuture<String>> memoizedFunction = memoizeAsync(key -> {
+            counter.incrementAndGet();
+            return load;
+        });
+
+        CompletableFuture<String> first = memoizedFunction.apply("key");
+        CompletableFuture<String> second = memoizedFunction.apply("key");
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+
+        load.complete("value");
+        assertThat(first.get()).isEqualTo("value");
+        assertThat(memoizedFunction.apply("key").get()).isEqualTo("value");
+        assertThat(counter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMemoizeAsyncEvictsFailure() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<String, CompletableFuture<String>> memoizedFunction = memoizeAsync(key -> {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            if (counter.incrementAndGet() == 1) {
+                result.completeExceptionally(new IOException());
+            } else {
+                result.complete(key + counter.get());
+            }
+            return result;
+        });
+
+        assertThat(memoizedFunction.apply("key")).isCompletedExceptionally();
+        assertThat(memoizedFunction.apply("key").get()).isEqualTo("key2");
+        assertThat(memoizedFunction.apply("key").get()).isEqualTo("key2");
+    }
+
+    @Test
+    public void testMemoizeAsyncEvictsCancelled() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<String, CompletableFuture<String>> memoizedFunction = memoizeAsync(key -> {
+            counter.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        memoizedFunction.apply("key").cancel(false);
+        assertThat(memoizedFunction.apply("key")).isNotCancelled();
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeAsyncEvictsOnError() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<String, CompletableFuture<String>> memoizedFunction = memoizeAsync(key -> {
+            if (counter.incrementAndGet() == 1) {
+                throw new AssertionError("test");
+            }
+            return CompletableFuture.completedFuture(key);
+        });
+
+        assertThatThrownBy(() -> memoizedFunction.apply("key")).isExactlyInstanceOf(AssertionError.class);
+        assertThat(memoizedFunction.apply("key").get(5, TimeUnit.SECONDS)).isEqualTo("key");
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeAsyncDoesNotBlockOtherInputs() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // "Aa" and "BB" have the same hash code
+        Function<String, CompletableFuture<String>> memoizedFunction = memoizeAsync(key -> {
+            if (key.equals("Aa")) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return CompletableFuture.completedFuture(key);
+        });
+
+        CompletableFuture<CompletableFuture<String>> slow = CompletableFuture.supplyAsync(
+                () -> memoizedFunction.apply("Aa"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            assertThat(CompletableFuture.supplyAsync(() -> memoizedFunction.apply("BB").join())
+                    .get(5, TimeUnit.SECONDS)).isEqualTo("BB");
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS).get()).isEqualTo("Aa");
+    }
+
+    @Test
+    public void testMemoizeRecursive() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<Integer, BigInteger> fibonacci = memoizeRecursive((self, n) -> {
+            counter.incrementAndGet();
+            return n < 2 ? BigInteger.valueOf(n) : self.apply(n - 1).add(self.apply(n - 2));
+        });
+
+        assertThat(fibonacci.apply(90)).isEqualTo(new BigInteger("2880067194370816120"));
+        // each input is computed once, naive recursion would take ~10^19 calls
+        assertThat(counter.get()).isEqualTo(91);
+        assertThat(fibonacci.apply(1000).bitLength()).isEqualTo(694);
+        assertThat(counter.get()).isEqualTo(1001);
+    }
+
+    @Test
+    public void testMemoizeRecursiveConcurrently() throws Exception {
+        Function<Integer, BigInteger> fibonacci = memoizeRecursive((self, n) ->
+                n < 2 ? BigInteger.valueOf(n) : self.apply(n - 1).add(self.apply(n - 2)));
+
+        BigInteger[] expected = new BigInteger[300];
+        expected[0] = BigInteger.ZERO;
+        expected[1] = BigInteger.ONE;
+        for (int i = 2; i < expected.length; i++) {
+            expected[i] = expected[i - 1].add(expected[i - 2]);
+        }
+        IntStream.range(0, 10_000).parallel()
+                .map(i -> expected.length - 1 - i % expected.length)
+                .forEach(n -> assertThat(fibonacci.apply(n)).isEqualTo(expected[n]));
+    }
+
+    @Test
+    public void testMemoizeInt() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        IntFunction<String> memoizedFunction = memoizeInt(key -> format("{}: {}", key, counter.incrementAndGet()));
+
+        assertThat(memoizedFunction.apply(0)).isEqualTo("0: 1");
+        assertThat(memoizedFunction.apply(0)).isEqualTo("0: 1");
+        assertThat(memoizedFunction.apply(-1)).isEqualTo("-1: 2");
+        assertThat(memoizedFunction.apply(Integer.MIN_VALUE)).isEqualTo("-2147483648: 3");
+        assertThat(memoizedFunction.apply(-1)).isEqualTo("-1: 2");
+    }
+
+    @Test
+    public void testMemoizeLong() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        LongFunction<String> memoizedFunction = memoizeLong(key -> {
+            counter.incrementAndGet();
+            return Long.toHexString(key);
+        });
+
+        // grows the table a few times
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(memoizedFunction.apply(key << 32)).isEqualTo(Long.toHexString(key << 32));
+        }
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(memoizedFunction.apply(key << 32)).isEqualTo(Long.toHexString(key << 32));
+        }
+        assertThat(counter.get()).isEqualTo(10_000);
+    }
+
+    @Test
+    public void testMemoizeIntToInt() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        IntUnaryOperator memoizedFunction = memoizeIntToInt(key -> {
+            counter.incrementAndGet();
+            return key == 1 ? Integer.MIN_VALUE : key * 2;
+        });
+
+        assertThat(memoizedFunction.applyAsInt(1)).isEqualTo(Integer.MIN_VALUE);
+        assertThat(memoizedFunction.applyAsInt(1)).isEqualTo(Integer.MIN_VALUE);
+        assertThat(memoizedFunction.applyAsInt(0)).isEqualTo(0);
+        assertThat(memoizedFunction.applyAsInt(0)).isEqualTo(0);
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeLongToIntConcurrently() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        LongToIntFunction memoizedFunction = memoizeLongToInt(key -> {
+            counter.incrementAndGet();
+            return (int) (key % 1000);
+        });
+
+        IntStream.range(0, 200_000).parallel()
+                .map(i -> i % 20_000 * 7)
+                .forEach(key -> assertThat(memoizedFunction.applyAsInt(key)).isEqualTo(key % 1000));
+        // races may compute an input twice, but not much more than that
+        assertThat(counter.get()).isBetween(20_000, 40_000);
+    }
+
+    @Test
+    public void testMemoizeIntHitDoesNotAllocate() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        IntFunction<String> memoizedFunction = memoizeInt(Integer::toString);
+        IntUnaryOperator memoizedOperator = memoizeIntToInt(key -> key * 2);
+        for (int i = 0; i < 1000; i++) {
+            memoizedFunction.apply(i);
+            memoizedOperator.applyAsInt(i);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        long checksum = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 1000; i++) {
+                checksum += memoizedFunction.apply(i).length() + memoizedOperator.applyAsInt(i);
+            }
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(checksum).isPositive();
+        // 200k boxed lookups would take megabytes
+        assertThat(allocated).isLessThan(64 * 1024L);
+    }
+
+    @Test
+    public void testMemoizeBiFunction() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        BiFunction<String, Integer, String> memoizedFunction = memoize((key, version) ->
+                format("{}@{}: {}", key, version, counter.incrementAndGet()));
+
+        assertThat(memoizedFunction.apply("a", 1)).isEqualTo("a@1: 1");
+        assertThat(memoizedFunction.apply("a", 1)).isEqualTo("a@1: 1");
+        assertThat(memoizedFunction.apply("a", 2)).isEqualTo("a@2: 2");
+        assertThat(memoizedFunction.apply("b", 1)).isEqualTo("b@1: 3");
+        assertThat(memoizedFunction.apply(null, 1)).isEqualTo("null@1: 4");
+        assertThat(memoizedFunction.apply(null, 1)).isEqualTo("null@1: 4");
+        assertThat(memoizedFunction.apply("a", 2)).isEqualTo("a@2: 2");
+    }
+
+    @Test
+    public void testMemoizeTriFunction() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        TriFunction<Integer, Integer, Integer, Integer> memoizedFunction =
+                memoize((Integer a, Integer b, Integer c) -> {
+                    counter.incrementAndGet();
+                    return a * 100 + b * 10 + c;
+                });
+
+        IntStream.range(0, 1000).forEach(i ->
+                assertThat(memoizedFunction.apply(i / 100, i / 10 % 10, i % 10)).isEqualTo(i));
+        IntStream.range(0, 1000).forEach(i ->
+                assertThat(memoizedFunction.apply(i / 100, i / 10 % 10, i % 10)).isEqualTo(i));
+        assertThat(counter.get()).isEqualTo(1000);
+    }
+
+    @Test
+    public void testMemoizeBiFunctionConcurrently() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        BiFunction<Integer, Integer, Integer> memoizedFunction = memoize((a, b) -> {
+            counter.incrementAndGet();
+            return a * b;
+        });
+
+        IntStream.range(0, 200_000).parallel()
+                .map(i -> i % 20_000)
+                .forEach(i -> assertThat(memoizedFunction.apply(i / 100, i % 100)).isEqualTo(i / 100 * (i % 100)));
+        // races may compute an input twice, but not much more than that
+        assertThat(counter.get()).isBetween(20_000, 40_000);
+    }
+
+    @Test
+    public void testMemoizeBiFunctionHitDoesNotAllocate() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        BiFunction<String, String, String> memoizedFunction = memoize(String::concat);
+        String[] keys = IntStream.range(0, 1000).mapToObj(Integer::toString).toArray(String[]::new);
+        for (String key : keys) {
+            memoizedFunction.apply(key, key);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        long checksum = 0;
+        for (int round = 0; round < 100; round++) {
+            for (String key : keys) {
+                checksum += memoizedFunction.apply(key, key).length();
+            }
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(checksum).isPositive();
+        // 100k lookups by a tuple key would take megabytes
+        assertThat(allocated).isLessThan(64 * 1024L);
+    }
+
+    @Test
+    public void testFunctionMemoizerStats() throws Exception {
+        FunctionMemoizer<Integer, Integer> memoizer = new FunctionMemoizer<>(
+                MemoizeSpec.builder().recordStats().build());
+        Function<Integer, Integer> memoizedFunction = memoizer.doMemoize(key -> key * 2);
+
+        memoizedFunction.apply(1);
+        memoizedFunction.apply(1);
+        memoizedFunction.apply(1);
+        memoizedFunction.apply(2);
+        MemoizeStats stats = memoizer.stats();
+
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(stats.getMissCount()).isEqualTo(2);
+        assertThat(stats.getLoadCount()).isEqualTo(2);
+        assertThat(stats.getMaxLoadTimeNanos()).isLessThanOrEqualTo(stats.getTotalLoadTimeNanos());
+        assertThat(stats.getSize()).isEqualTo(2);
+        assertThat(stats.getEvictionCount()).isZero();
+        assertThat(stats.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testBoundedFunctionMemoizerStats() throws Exception {
+        FunctionMemoizer<Integer, Integer> memoizer = new FunctionMemoizer<>(MemoizeSpec.builder()
+                .maximumSize(10)
+                .recordStats()
+                .build());
+        Function<Integer, Integer> memoizedFunction = memoizer.doMemoize(key -> key * 2);
+
+        for (int i = 0; i < 100; i++) {
+            memoizedFunction.apply(i);
+        }
+        memoizedFunction.apply(99);
+        MemoizeStats stats = memoizer.stats();
+
+        assertThat(stats.getMissCount()).isEqualTo(100);
+        assertThat(stats.getLoadCount()).isEqualTo(100);
+        assertThat(stats.getEvictionCount()).isEqualTo(100 - stats.getSize());
+        assertThat(stats.getSize()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void testSupplierMemoizerStats() throws Exception {
+        AtomicLong time = new AtomicLong();
+        SupplierMemoizer<String> memoizer = new SupplierMemoizer<>(MemoizeSpec.builder()
+                .expireAfterWrite(Duration.ofSeconds(1))
+                .ticker(time::get)
+                .recordStats()
+                .build());
+        Supplier<String> memoizedSupplier = memoizer.doMemoize(() -> "value");
+
+        memoizedSupplier.get();
+        memoizedSupplier.get();
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        memoizedSupplier.get();
+        MemoizeStats stats = memoizer.stats();
+
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(2);
+        assertThat(stats.getLoadCount()).isEqualTo(2);
+        assertThat(stats.getEvictionCount()).isEqualTo(1);
+        assertThat(stats.getSize()).isEqualTo(1);
+        assertThat(new SupplierMemoizer<String>().stats().getSize()).isZero();
+    }
+
+    @Test
+    public void testMemoizerStatsMXBean() throws Exception {
+        String name = "com.github.nginate.commons.lang:type=Memoizer,name=test";
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        FunctionMemoizer<String, String> memoizer = new FunctionMemoizer<>(MemoizeSpec.builder()
+                .registerMXBean(name)
+                .build());
+        try {
+            Function<String, String> memoizedFunction = memoizer.doMemoize(String::trim);
+            memoizedFunction.apply(" key ");
+            memoizedFunction.apply(" key ");
+
+            assertThat(server.getAttribute(new ObjectName(name), "HitCount")).isEqualTo(1L);
+            assertThat(server.getAttribute(new ObjectName(name), "Size")).isEqualTo(1L);
+            assertThatThrownBy(() -> memoize(String::trim, MemoizeSpec.builder().registerMXBean(name).build()))
+                    .isExactlyInstanceOf(IllegalStateException.class);
+        } finally {
+            memoizer.unregisterMXBean();
+        }
+        assertThat(server.isRegistered(new ObjectName(name))).isFalse();
+        // name may be used again
+        new FunctionMemoizer<>(MemoizeSpec.builder().registerMXBean(name).build()).unregisterMXBean();
+        assertThatThrownBy(() -> MemoizeSpec.builder().registerMXBean("no colon"))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testMemoizerStatsMXBeanDoesNotHoldMemoizer() throws Exception {
+        ObjectName name = new ObjectName("com.github.nginate.commons.lang:type=Memoizer,name=collected");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        memoize(String::trim, MemoizeSpec.builder().registerMXBean(name.toString()).build()).apply(" key ");
+
+        for (int i = 0; i < 100 && server.isRegistered(name); i++) {
+            System.gc();
+            // collected memoizer's MXBean unregisters itself on read
+            assertThat((Long) server.getAttribute(name, "Size")).isBetween(0L, 1L);
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void testMemoizedFunctionStats() throws Exception {
+        ObjectName name = new ObjectName("com.github.nginate.commons.lang:type=Memoizer,name=function");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        MemoizedFunction<String, String> memoizedFunction = memoize(String::trim,
+                MemoizeSpec.builder().maximumSize(10).registerMXBean(name.toString()).build());
+        MemoizedSupplier<String> memoizedSupplier = memoize(() -> "value", MemoizeSpec.builder().recordStats().build());
+        try {
+            memoizedFunction.apply(" key ");
+            memoizedFunction.apply(" key ");
+            memoizedSupplier.get();
+
+            assertThat(memoizedFunction.stats().getHitCount()).isEqualTo(1);
+            assertThat(memoizedFunction.stats().getSize()).isEqualTo(1);
+            assertThat(memoizedSupplier.stats().getMissCount()).isEqualTo(1);
+        } finally {
+            memoizedFunction.unregisterMXBean();
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+    @Test
+    public void testFunctionMemoizerDropsUnusedCaches() throws Exception {
+        FunctionMemoizer<Integer, Integer> memoizer = new FunctionMemoizer<>(MemoizeSpec.builder()
+                .maximumSize(10)
+                .build());
+        Function<Integer, Integer> memoizedFunction = memoizer.doMemoize(key -> key * 2);
+        memoizedFunction.apply(1);
+        for (int i = 0; i < 100; i++) {
+            memoizer.doMemoize(key -> key * 3).apply(1);
+        }
+
+        for (int i = 0; i < 100 && memoizer.stats().getSize() > 1; i++) {
+            System.gc();
+        }
+        // caches of collected functions are not counted anymore
+        assertThat(memoizer.stats().getSize()).isEqualTo(1);
+        assertThat(memoizedFunction.apply(1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testMemoizeFunctionWithThreadLocalCache() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Function<Integer, String> memoizedFunction = memoize(key -> {
+            counter.incrementAndGet();
+            return "value" + key;
+        }, MemoizeSpec.builder().threadLocalCache(16).build());
+
+        IntStream.range(0, 100_000).parallel()
+                .map(i -> i % 8)
+                .forEach(key -> assertThat(memoizedFunction.apply(key)).isEqualTo("value" + key));
+        // shared level computes each input once
+        assertThat(counter.get()).isEqualTo(8);
+    }
+
+    @Test
+    public void testThreadLocalCacheSlotCollision() throws Exception {
+        FunctionMemoizer<Integer, String> memoizer = new FunctionMemoizer<>(MemoizeSpec.builder()
+                .threadLocalCache(1)
+                .recordStats()
+                .build());
+        Function<Integer, String> memoizedFunction = memoizer.doMemoize(String::valueOf);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(memoizedFunction.apply(1)).isEqualTo("1");
+            assertThat(memoizedFunction.apply(2)).isEqualTo("2");
+        }
+        assertThat(memoizedFunction.apply(2)).isEqualTo("2");
+        MemoizeStats stats = memoizer.stats();
+
+        // single slot: alternating inputs are served by the shared level, repeated one by the thread one
+        assertThat(stats.getMissCount()).isEqualTo(2);
+        assertThat(stats.getHitCount()).isEqualTo(5);
+        assertThat(stats.getLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testThreadLocalCacheRejectsExpiration() throws Exception {
+        assertThatThrownBy(() -> MemoizeSpec.builder()
+                .threadLocalCache(16)
+                .expireAfterWrite(Duration.ofSeconds(1))
+                .build())
+                .isExactlyInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> MemoizeSpec.builder().threadLocalCache(0))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void testUncheckedRunnable() throws Exception {
         Runnable runnable = unchecked(() -> {
@@ -61,6 +750,182 @@ public class NFunctionsTest {
         assertThatThrownBy(runnable::run).isExactlyInstanceOf(RuntimeIOException.class);
     }
 
+    @Test
+    public void testPersistentMemoizerSurvivesReopen() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        AtomicInteger counter = new AtomicInteger();
+        Function<Long, String> function = input -> {
+            counter.incrementAndGet();
+            return "result " + input;
+        };
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(function);
+            assertThat(memoized.apply(1L)).isEqualTo("result 1");
+            assertThat(memoized.apply(1L)).isEqualTo("result 1");
+            assertThat(memoized.apply(2L)).isEqualTo("result 2");
+        }
+        assertThat(counter.get()).isEqualTo(2);
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(function);
+            assertThat(memoized.apply(1L)).isEqualTo("result 1");
+            assertThat(memoized.apply(2L)).isEqualTo("result 2");
+            assertThat(memoizer.size()).isEqualTo(2);
+        }
+        // results are read from the file after restart
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPersistentMemoizerGrowsFile() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        Function<Long, String> function = input -> format("{}:{}", input, new String(new char[1024]));
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(function);
+            LongStream.range(0, 1000).forEach(memoized::apply);
+        }
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(input -> {
+                throw new AssertionError("should be read from file");
+            });
+            assertThat(memoizer.size()).isEqualTo(1000);
+            assertThat(memoized.apply(999L)).isEqualTo(function.apply(999L));
+        }
+    }
+
+    @Test
+    public void testPersistentMemoizerCompaction() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        AtomicInteger counter = new AtomicInteger();
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(input -> {
+                counter.incrementAndGet();
+                return format("{}:{}", input, new String(new char[1024]));
+            });
+            LongStream.range(0, 100).forEach(memoized::apply);
+            long initialSize = Files.size(file);
+
+            LongStream.range(0, 90).forEach(input -> assertThat(memoizer.invalidate(input)).isTrue());
+            assertThat(memoizer.invalidate(0L)).isFalse();
+            memoizer.compact();
+
+            assertThat(Files.size(file)).isLessThan(initialSize / 5);
+            assertThat(memoizer.size()).isEqualTo(10);
+            assertThat(memoized.apply(95L)).startsWith("95:");
+            assertThat(counter.get()).isEqualTo(100);
+            assertThat(memoized.apply(5L)).startsWith("5:");
+            assertThat(counter.get()).isEqualTo(101);
+        }
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            assertThat(memoizer.size()).isEqualTo(11);
+        }
+    }
+
+    @Test
+    public void testPersistentMemoizerRejectsForeignFile() throws Exception {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "definitely not a memoizer file".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not a memoizer file");
+    }
+
+    @Test
+    public void testPersistentMemoizerRejectsCorruptedFile() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        try (PersistentFunctionMemoizer<String, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8())) {
+            memoizer.doMemoize(String::toUpperCase).apply("a");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 16);
+        }
+
+        try (PersistentFunctionMemoizer<String, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8())) {
+            Function<String, String> memoized = memoizer.doMemoize(String::toUpperCase);
+            assertThatThrownBy(() -> memoized.apply("a"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("is corrupted at 16");
+        }
+    }
+
+    @Test
+    public void testPersistentMemoizerAppendsAfterCompaction() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        AtomicInteger counter = new AtomicInteger();
+        Function<Long, String> function = input -> {
+            counter.incrementAndGet();
+            return String.valueOf(input);
+        };
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(function);
+            LongStream.range(0, 10).forEach(memoized::apply);
+            memoizer.invalidate(0L);
+            memoizer.compact();
+            LongStream.range(10, 20).forEach(memoized::apply);
+            memoizer.invalidate(1L);
+            assertThat(memoizer.size()).isEqualTo(18);
+        }
+
+        try (PersistentFunctionMemoizer<Long, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.longs(), Serializer.utf8())) {
+            Function<Long, String> memoized = memoizer.doMemoize(function);
+            assertThat(memoizer.size()).isEqualTo(18);
+            LongStream.range(2, 20)
+                    .forEach(input -> assertThat(memoized.apply(input)).isEqualTo(String.valueOf(input)));
+            assertThat(counter.get()).isEqualTo(20);
+            assertThat(memoized.apply(1L)).isEqualTo("1");
+            assertThat(counter.get()).isEqualTo(21);
+        }
+    }
+
+    @Test
+    public void testPersistentMemoizerLocksFile() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        try (PersistentFunctionMemoizer<String, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8())) {
+            memoizer.doMemoize(String::toUpperCase).apply("a");
+            assertThatThrownBy(() -> new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("is used by another memoizer");
+
+            memoizer.compact();
+            assertThatThrownBy(() -> new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8()))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        try (PersistentFunctionMemoizer<String, String> memoizer =
+                     new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8())) {
+            assertThat(memoizer.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testPersistentMemoizerClosed() throws Exception {
+        Path file = temporaryFolder.newFolder().toPath().resolve("memoized");
+        PersistentFunctionMemoizer<String, String> memoizer =
+                new PersistentFunctionMemoizer<>(file, Serializer.utf8(), Serializer.utf8());
+        Function<String, String> memoized = memoizer.doMemoize(String::toUpperCase);
+        memoizer.close();
+
+        assertThatThrownBy(() -> memoized.apply("a")).isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     public void testUncheckedConsumer() throws Exception {
         Consumer<String> consumer = unchecked(s -> {
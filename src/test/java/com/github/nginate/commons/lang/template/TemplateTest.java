@@ -0,0 +1,301 @@
+package com.github.nginate.commons.lang.template;
+
+import com.github.nginate.commons.lang.function.unchecked.RuntimeIOException;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TemplateTest {
+
+    @Test
+    public void testCompile() throws Exception {
+        Template template = Template.compile("abc {} asd {} { {");
+
+        assertThat(template.getPlaceholderCount()).isEqualTo(2);
+        assertThat(template.getSource()).isEqualTo("abc {} asd {} { {");
+        assertThat(template.render("test", "test2")).isEqualTo("abc test asd test2 { {");
+        // same template may be rendered many times
+        assertThat(template.render(1, null)).isEqualTo("abc 1 asd null { {");
+    }
+
+    @Test
+    public void testCompileNamed() throws Exception {
+        Template template = Template.compileNamed("{first} abc {second} { {third}");
+
+        assertThat(template.getPlaceholderCount()).isEqualTo(3);
+        assertThat(template.getPlaceholderName(0)).isEqualTo("first");
+        assertThat(template.getPlaceholderName(1)).isEqualTo("second");
+        assertThat(template.getPlaceholderName(2)).isEqualTo(" {third");
+        assertThat(template.render("a", "b", "c")).isEqualTo("a abc b c");
+    }
+
+    @Test
+    public void testCompileWithoutPlaceholders() throws Exception {
+        assertThat(Template.compile("").render()).isEmpty();
+        assertThat(Template.compile("{").render()).isEqualTo("{");
+        assertThat(Template.compileNamed("abc {{{{ asd").render("ignored")).isEqualTo("abc {{{{ asd");
+    }
+
+    @Test
+    public void testRenderTo() throws Exception {
+        StringBuilder builder = new StringBuilder("prefix ");
+        assertThat((Object) Template.compile("{}-{}").renderTo(builder, 1, 2)).isSameAs(builder);
+        assertThat(builder.toString()).isEqualTo("prefix 1-2");
+    }
+
+    @Test
+    public void testRenderWithMissingArgs() throws Exception {
+        assertThatThrownBy(() -> Template.compile("{} {}").render("test"))
+                .isInstanceOf(ArrayIndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testRenderToFailingAppendable() throws Exception {
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("closed");
+            }
+
+            @Override
+            public void flush() throws IOException {
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+        Template template = Template.compile("abc {}");
+
+        assertThatThrownBy(() -> template.renderTo(writer, "test"))
+                .isExactlyInstanceOf(RuntimeIOException.class)
+                .hasCauseExactlyInstanceOf(IOException.class);
+        assertThatThrownBy(() -> template.renderBufferedTo(writer, "test"))
+                .isExactlyInstanceOf(RuntimeIOException.class)
+                .hasCauseExactlyInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testEncodeToBuffer() throws Exception {
+        Template template = Template.compile("абв {} € {} end");
+        String arg = "test \uD83D\uDE00 ї";
+        byte[] expected = template.render(arg, 42).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(128);
+        assertThat(template.encodeTo(buffer, arg, 42)).isTrue();
+
+        buffer.flip();
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.get(actual);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testEncodeToBufferOverflow() throws Exception {
+        Template template = Template.compile("abc {} asd");
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.put((byte) 1);
+
+        // does not fit, nothing is written
+        assertThat(template.encodeTo(buffer, "test")).isFalse();
+        assertThat(buffer.position()).isEqualTo(1);
+
+        // fits after flush
+        buffer.clear();
+        assertThat(template.encodeTo(buffer, "test")).isTrue();
+        assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8)).isEqualTo("abc test asd");
+    }
+
+    @Test
+    public void testEncodeMalformedSurrogates() throws Exception {
+        Template template = Template.compile("{}|{}");
+        String lowFirst = "a\uDE00\uD83D";
+        byte[] expected = template.render(lowFirst, "\uD83D").getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        assertThat(template.encodeTo(buffer, lowFirst, "\uD83D")).isTrue();
+        assertThat(buffer.position()).isEqualTo(expected.length);
+        assertThat(template.encodeTo(new ByteArrayOutputStream(), lowFirst, "\uD83D").toByteArray())
+                .isEqualTo(expected);
+    }
+
+    @Test
+    public void testEncodeToStream() throws Exception {
+        Template template = Template.compileNamed("{a} ї {b}");
+        StringBuilder longArg = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longArg.append("ab€\uD83D\uDE00");
+        }
+        byte[] expected = template.render(longArg, null).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(template.encodeTo(new ByteArrayOutputStream(), longArg, null).toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testRenderFixedArity() throws Exception {
+        Template template = Template.compile("{}|{}|{}|{}");
+
+        assertThat(template.render(1, 2, 3, 4)).isEqualTo("1|2|3|4");
+        assertThat(Template.compile("{}|{}|{}").render(1, 2, 3)).isEqualTo("1|2|3");
+        assertThat(Template.compile("{}|{}").render(1, null)).isEqualTo("1|null");
+        assertThat(Template.compile("{}").render("test")).isEqualTo("test");
+        // extra args are ignored
+        assertThat(Template.compile("{}").render("test", "test2")).isEqualTo("test");
+        assertThatThrownBy(() -> template.render(1, 2, 3)).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testRenderer() throws Exception {
+        Template template = Template.compile("{} {} {} {} {} {} {} {}|");
+
+        String result = template.renderer()
+                .arg(1).arg(2L).arg(1.5).arg(2.5f).arg(true).arg('c').arg("text").arg(new StringBuilder("sb"))
+                .arg("ignored")
+                .render();
+        assertThat(result).isEqualTo("1 2 1.5 2.5 true c text sb|");
+    }
+
+    @Test
+    public void testRendererMisuse() throws Exception {
+        Template template = Template.compile("{} {}");
+
+        assertThatThrownBy(() -> template.renderer().arg(1).render())
+                .isInstanceOf(ArrayIndexOutOfBoundsException.class);
+
+        TemplateRenderer renderer = template.renderer().arg(1).arg(2);
+        assertThat(renderer.render()).isEqualTo("1 2");
+        assertThatThrownBy(renderer::render).isExactlyInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> renderer.arg(3)).isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testNestedRenderers() throws Exception {
+        Template template = Template.compile("<{} {}>");
+
+        TemplateRenderer outer = template.renderer().arg(1);
+        String inner = template.renderer().arg(2).arg(3).render();
+        Object lazy = new Object() {
+            @Override
+            public String toString() {
+                return template.renderer().arg(4).arg(5).render();
+            }
+        };
+        assertThat(outer.arg(inner).render()).isEqualTo("<1 <2 3>>");
+        assertThat(template.renderer().arg(lazy).arg(6).render()).isEqualTo("<<4 5> 6>");
+        assertThat(template.renderer().arg(7).arg(8).render()).isEqualTo("<7 8>");
+    }
+
+    @Test
+    public void testRendererDoesNotAllocate() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Template template = Template.compile("{} {} {}");
+        for (int i = 0; i < 1000; i++) {
+            template.renderer().arg(i).arg((long) i).arg("text").render();
+            template.render("text", "text", "text");
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        long checksum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            checksum += template.renderer().arg(i).arg((long) i).arg("text").render().length();
+            checksum += template.render("text", "text", "text").length();
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(checksum).isPositive();
+        // resulting strings only, up to 24 chars each, renderers and buffers would take as much again
+        assertThat(allocated).isLessThan(200_000 * 96L);
+    }
+
+    @Test
+    public void testRendererReleasesBuffer() throws Exception {
+        Template template = Template.compile("{} {}");
+        Object failing = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalArgumentException("test");
+            }
+        };
+
+        template.renderer().arg(1);
+        assertThatThrownBy(() -> template.renderer().arg(1).arg(failing).render())
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // thread buffers are handed out again, not replaced by one-off instances
+        ReusableBuffers first = ReusableBuffers.acquire();
+        first.release();
+        ReusableBuffers second = ReusableBuffers.acquire();
+        second.release();
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void testCompileCharSequence() throws Exception {
+        CharBuffer buffer = CharBuffer.wrap("--abc {} asd {}--".toCharArray(), 2, 13).slice();
+
+        Template template = Template.compile(buffer);
+        assertThat(template.render(1, 2)).isEqualTo("abc 1 asd 2");
+        assertThat(template.getSource()).isEqualTo("abc {} asd {}");
+        // template does not depend on source after compilation
+        buffer.put(0, 'x');
+        assertThat(template.render(1, 2)).isEqualTo("abc 1 asd 2");
+
+        Template named = Template.compileNamed(new StringBuilder("{a} asd { {b}"));
+        assertThat(named.render(1, 2)).isEqualTo("1 asd 2");
+        assertThat(named.getSource()).isEqualTo("{a} asd { {b}");
+    }
+
+    @Test
+    public void testRenderOnce() throws Exception {
+        CharBuffer template = CharBuffer.wrap("abc {} asd {} { {");
+        assertThat(Template.renderOnce(new StringBuilder(), template, "test", 1).toString())
+                .isEqualTo("abc test asd 1 { {");
+        assertThat(Template.renderNamedOnce(new StringBuilder(), CharBuffer.wrap("{a} { {b} {"), 1, 2).toString())
+                .isEqualTo("1 2 {");
+    }
+
+    @Test
+    public void testScanningConsistency() throws Exception {
+        // compiled string templates, compiled char buffers and in place rendering must agree on any input
+        Random random = new Random(42);
+        char[] alphabet = {'{', '}', 'a', '.'};
+        Object[] args = new Object[64];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = "<" + i + ">";
+        }
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            char[] chars = new char[random.nextInt(16)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String source = new String(chars);
+
+            String simple = Template.compile(source).render(args);
+            assertThat(Template.compile(CharBuffer.wrap(chars)).render(args)).isEqualTo(simple);
+            assertThat(Template.renderOnce(new StringBuilder(), CharBuffer.wrap(chars), args).toString())
+                    .isEqualTo(simple);
+            assertThat(Template.compile(source).getSource()).isEqualTo(source);
+
+            String named = Template.compileNamed(source).render(args);
+            assertThat(Template.compileNamed(CharBuffer.wrap(chars)).render(args)).isEqualTo(named);
+            assertThat(Template.renderNamedOnce(new StringBuilder(), CharBuffer.wrap(chars), args).toString())
+                    .isEqualTo(named);
+            assertThat(Template.compileNamed(CharBuffer.wrap(chars)).getSource()).isEqualTo(source);
+        }
+    }
+}